@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.minecraftforge.srg2source.api.OutputSupplier;
+import net.minecraftforge.srg2source.api.RangeApplierBuilder;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4G")
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+public class ApplyBenchmark {
+    @Param({"1000", "10000", "50000"})
+    public int files;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private SyntheticProject project;
+
+    @Setup
+    public void setup() throws IOException {
+        this.project = SyntheticProject.create(this.files);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        this.project.delete();
+    }
+
+    @Benchmark
+    public void apply() throws IOException {
+        new RangeApplierBuilder()
+            .quiet()
+            .srg(this.project.getMappings())
+            .range(this.project.getRangeMap())
+            .input(this.project.getSources())
+            .output(new OutputSupplier() {
+                @Override
+                public OutputStream getOutput(String relPath) {
+                    return OutputStream.nullOutputStream();
+                }
+
+                @Override
+                public void close() {}
+            })
+            .threads(this.threads)
+            .build()
+            .run();
+    }
+}
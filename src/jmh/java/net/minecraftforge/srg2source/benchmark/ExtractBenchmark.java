@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.minecraftforge.srg2source.api.RangeExtractorBuilder;
+import net.minecraftforge.srg2source.range.IRangeMapWriter;
+import net.minecraftforge.srg2source.range.RangeMap;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4G")
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class ExtractBenchmark {
+    @Param({"1000", "10000", "50000"})
+    public int files;
+
+    // Batched mode resolves the whole tree with one JDT environment, legacy mode parses every file on its own.
+    @Param({"true", "false"})
+    public boolean batch;
+
+    private SyntheticProject project;
+
+    @Setup
+    public void setup() throws IOException {
+        this.project = SyntheticProject.create(this.files);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        this.project.delete();
+    }
+
+    @Benchmark
+    public void extract(Blackhole blackhole) {
+        boolean success = new RangeExtractorBuilder()
+            .input(this.project.getSources())
+            .output(new IRangeMapWriter() {
+                @Override
+                public void write(RangeMap range) {
+                    blackhole.consume(range);
+                }
+
+                @Override
+                public void close() {}
+            })
+            .batch(this.batch)
+            .quiet()
+            .build()
+            .run();
+
+        if (!success)
+            throw new IllegalStateException("Failed to extract " + this.project.getSources());
+    }
+}
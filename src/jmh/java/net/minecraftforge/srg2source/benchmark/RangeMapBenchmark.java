@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.minecraftforge.srg2source.range.RangeMap;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4G")
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class RangeMapBenchmark {
+    @Param({"1000", "10000", "50000"})
+    public int files;
+
+    // Held in memory so we measure parsing and formatting, not the disk
+    private byte[] data;
+    private Map<String, RangeMap> ranges;
+
+    @Setup
+    public void setup() throws IOException {
+        SyntheticProject project = SyntheticProject.create(this.files);
+        try {
+            this.data = Files.readAllBytes(project.getRangeMap());
+            this.ranges = RangeMap.readAll(new ByteArrayInputStream(this.data));
+        } finally {
+            project.delete();
+        }
+    }
+
+    @Benchmark
+    public Map<String, RangeMap> readAll() throws IOException {
+        return RangeMap.readAll(new ByteArrayInputStream(this.data));
+    }
+
+    @Benchmark
+    public void write() {
+        PrintWriter out = new PrintWriter(Writer.nullWriter());
+        for (RangeMap range : this.ranges.values())
+            range.write(out, true);
+        out.flush();
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import net.minecraftforge.srg2source.apply.RangeApplier;
+import net.minecraftforge.srg2source.range.RangeMapBuilder;
+import net.minecraftforge.srg2source.range.TextRangeMapWriter;
+import net.minecraftforge.srg2source.util.ContentHash;
+
+/*
+ * Generates a source tree of any size, along with the range map the extractor would make for it and mappings that rename everything.
+ * The range map is built while writing the source, so setting up large benchmarks doesn't need a full extraction.
+ *
+ * Every class has a field and a method, and references the field and method of another class, usually in a different package:
+ *   package net.s2s.bench.p0;
+ *
+ *   import net.s2s.bench.p3.C307;
+ *
+ *   public class C0 {
+ *       public int f_0;
+ *       public C307 other;
+ *
+ *       public int m_0(int p_0) {
+ *           return this.f_0 + this.other.f_307 + this.other.m_307(p_0);
+ *       }
+ *   }
+ */
+public class SyntheticProject {
+    private static final int CLASSES_PER_PACKAGE = 100;
+
+    private final Path root;
+    private final int files;
+
+    private SyntheticProject(Path root, int files) {
+        this.root = root;
+        this.files = files;
+    }
+
+    public static SyntheticProject create(int files) throws IOException {
+        SyntheticProject ret = new SyntheticProject(Files.createTempDirectory("s2s-bench"), files);
+        ret.generate();
+        return ret;
+    }
+
+    public int getFiles() {
+        return this.files;
+    }
+
+    public Path getSources() {
+        return this.root.resolve("src");
+    }
+
+    public Path getRangeMap() {
+        return this.root.resolve("src.range");
+    }
+
+    public Path getMappings() {
+        return this.root.resolve("mappings.tsrg");
+    }
+
+    public void delete() throws IOException {
+        try (Stream<Path> files = Files.walk(this.root)) {
+            for (Path file : (Iterable<Path>)files.sorted(Comparator.reverseOrder())::iterator)
+                Files.delete(file);
+        }
+    }
+
+    private static String pkg(int index) {
+        return "net/s2s/bench/p" + (index / CLASSES_PER_PACKAGE);
+    }
+
+    private static String cls(int index) {
+        return pkg(index) + "/C" + index;
+    }
+
+    private void generate() throws IOException {
+        RangeApplier quiet = new RangeApplier(); // Only used to report overlaps, which we never make
+        quiet.setLogger(new PrintStream(OutputStream.nullOutputStream()));
+        List<String> mappings = new ArrayList<>();
+
+        try (TextRangeMapWriter ranges = new TextRangeMapWriter(new PrintWriter(Files.newBufferedWriter(getRangeMap())))) {
+            for (int x = 0; x < this.files; x++) {
+                // Something else, usually in another package so it needs an import
+                int target = (x * 31 + CLASSES_PER_PACKAGE + 7) % this.files;
+                StringBuilder src = new StringBuilder(512);
+
+                src.append("package ");
+                int pkgStart = src.length();
+                src.append(pkg(x).replace('/', '.'));
+                int pkgEnd = src.length();
+                src.append(";\n\n");
+
+                int importStart = src.length();
+                src.append("import ").append(cls(target).replace('/', '.')).append(";\n\n");
+                int importEnd = src.length() - 2;
+
+                int classStart = src.length();
+                src.append("public class ");
+                int nameStart = src.length();
+                src.append("C" + x).append(" {\n");
+                src.append("    public int ");
+                int fieldStart = src.length();
+                src.append("f_" + x).append(";\n");
+                src.append("    public ");
+                int typeStart = src.length();
+                src.append("C" + target).append(' ');
+                int otherStart = src.length();
+                src.append("other;\n\n");
+
+                int methodStart = src.length();
+                src.append("    public int ");
+                int methodName = src.length();
+                src.append("m_" + x).append("(int ");
+                int paramStart = src.length();
+                src.append("p_" + x).append(") {\n");
+                src.append("        return this.");
+                int useField = src.length();
+                src.append("f_" + x).append(" + this.");
+                int useOther1 = src.length();
+                src.append("other.");
+                int useTargetField = src.length();
+                src.append("f_" + target).append(" + this.");
+                int useOther2 = src.length();
+                src.append("other.");
+                int useTargetMethod = src.length();
+                src.append("m_" + target).append('(');
+                int useParam = src.length();
+                src.append("p_" + x).append(");\n");
+                src.append("    }\n");
+                int methodEnd = src.length();
+                src.append("}\n");
+
+                String owner = cls(x);
+                String other = cls(target);
+                String name = owner + ".java";
+                byte[] data = src.toString().getBytes(StandardCharsets.UTF_8);
+                Path file = getSources().resolve(name);
+                Files.createDirectories(file.getParent());
+                Files.write(file, data);
+
+                RangeMapBuilder builder = new RangeMapBuilder(quiet, name, ContentHash.MD5.hash(data));
+                builder.addPackageReference(pkgStart, pkgEnd - pkgStart, pkg(x).replace('/', '.'));
+                builder.addImportBlock(importStart, importEnd - importStart);
+                builder.addImportDeclaration(importStart, importEnd - importStart, other.replace('/', '.'), false, false);
+                builder.addClassDeclaration(classStart, src.length() - classStart, owner);
+                builder.addClassReference(nameStart, ("C" + x).length(), "C" + x, owner, false);
+                builder.addFieldReference(fieldStart, ("f_" + x).length(), "f_" + x, owner);
+                builder.addClassReference(typeStart, ("C" + target).length(), "C" + target, other, false);
+                builder.addFieldReference(otherStart, 5, "other", owner);
+                builder.addMethodDeclaration(methodStart, methodEnd - methodStart, "m_" + x, "(I)I");
+                builder.addMethodReference(methodName, ("m_" + x).length(), "m_" + x, owner, "m_" + x, "(I)I");
+                builder.addParameterReference(paramStart, ("p_" + x).length(), "p_" + x, owner, "m_" + x, "(I)I", 0);
+                builder.addFieldReference(useField, ("f_" + x).length(), "f_" + x, owner);
+                builder.addFieldReference(useOther1, 5, "other", owner);
+                builder.addFieldReference(useTargetField, ("f_" + target).length(), "f_" + target, other);
+                builder.addFieldReference(useOther2, 5, "other", owner);
+                builder.addMethodReference(useTargetMethod, ("m_" + target).length(), "m_" + target, other, "m_" + target, "(I)I");
+                builder.addParameterReference(useParam, ("p_" + x).length(), "p_" + x, owner, "m_" + x, "(I)I", 0);
+                ranges.write(builder.build());
+
+                mappings.add(owner + ' ' + pkg(x) + "/D" + x);
+                mappings.add("\tf_" + x + " field_" + x);
+                mappings.add("\tm_" + x + " (I)I func_" + x);
+            }
+        }
+
+        Files.write(getMappings(), mappings);
+    }
+}
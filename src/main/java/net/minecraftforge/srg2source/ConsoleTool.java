@@ -74,6 +74,7 @@ public class ConsoleTool {
 
     private static enum Task {
         APPLY(RangeApplyMain::main),
+        CONVERT(RangeConvertMain::main),
         EXTRACT(RangeExtractMain::main);
 
         private Consumer<String[]> task;
@@ -10,6 +10,7 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
 import joptsimple.OptionException;
 import joptsimple.OptionParser;
 import joptsimple.OptionSet;
@@ -17,6 +18,8 @@ import joptsimple.OptionSpec;
 import joptsimple.ValueConverter;
 import joptsimple.util.PathConverter;
 import net.minecraftforge.srg2source.api.RangeApplierBuilder;
+import net.minecraftforge.srg2source.util.Metrics;
+import net.minecraftforge.srg2source.util.io.ConfLogger;
 
 public class RangeApplyMain {
     private static final ValueConverter<Path> PATH_CONVERTER = new PathConverter();
@@ -39,6 +42,13 @@ public class RangeApplyMain {
         OptionSpec<Void> sortImportArg = parser.acceptsAll(a("sortImports"));
         OptionSpec<Void> guessLambdasArg = parser.acceptsAll(a("guessLambdas"));
         OptionSpec<Void> guessLocalsArg = parser.acceptsAll(a("guessLocals"));
+        OptionSpec<Integer> threadsArg = parser.acceptsAll(a("threads")).withRequiredArg().ofType(Integer.class).defaultsTo(1);
+        OptionSpec<Path> planCacheArg = parser.acceptsAll(a("plan-cache")).withRequiredArg().withValuesConvertedBy(PATH_CONVERTER);
+        OptionSpec<Integer> compressionArg = parser.acceptsAll(a("compression")).withRequiredArg().ofType(Integer.class).defaultsTo(-1);
+        OptionSpec<Path> metricsArg = parser.acceptsAll(a("metrics")).withRequiredArg().withValuesConvertedBy(PATH_CONVERTER);
+        OptionSpec<Integer> slowestArg = parser.acceptsAll(a("slowest")).withRequiredArg().ofType(Integer.class).defaultsTo(10);
+        OptionSpec<String> logLevelArg = parser.acceptsAll(a("log-level")).withRequiredArg().ofType(String.class).defaultsTo("debug");
+        OptionSpec<Void> quietArg = parser.acceptsAll(a("quiet"));
 
         try
         {
@@ -59,13 +69,26 @@ public class RangeApplyMain {
             System.out.println("Sort:    " + options.has(sortImportArg));
             System.out.println("Lambdas: " + options.has(guessLambdasArg));
             System.out.println("Locals:  " + options.has(guessLocalsArg));
+            System.out.println("Threads: " + options.valueOf(threadsArg));
+            System.out.println("Compression: " + options.valueOf(compressionArg));
 
+            Metrics metrics = new Metrics();
+            metrics.setSlowestLimit(options.valueOf(slowestArg));
             RangeApplierBuilder builder = new RangeApplierBuilder()
+                .metrics(metrics)
                 .range(range)
                 .output(output)
                 .guessLambdas(options.has(guessLambdasArg))
                 .guessLocals(options.has(guessLocalsArg))
-                .sortImports(options.has(sortImportArg));
+                .sortImports(options.has(sortImportArg))
+                .threads(options.valueOf(threadsArg))
+                .compression(options.valueOf(compressionArg))
+                .logLevel(options.has(quietArg) ? ConfLogger.Level.QUIET : ConfLogger.Level.valueOf(options.valueOf(logLevelArg).toUpperCase(Locale.ENGLISH)));
+
+            if (options.has(planCacheArg)) {
+                System.out.println("Plans:   " + options.valueOf(planCacheArg));
+                builder.planCache(options.valueOf(planCacheArg));
+            }
 
             if (options.has(mappingArg))
             {
@@ -94,6 +117,11 @@ public class RangeApplyMain {
                 builder.trimImports();
 
             builder.build().run();
+
+            if (options.has(metricsArg)) {
+                System.out.println("Metrics: " + options.valueOf(metricsArg));
+                metrics.writeJson(options.valueOf(metricsArg));
+            }
         }
         catch (OptionException e)
         {
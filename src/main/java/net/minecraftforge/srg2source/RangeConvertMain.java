@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import joptsimple.OptionException;
+import joptsimple.OptionParser;
+import joptsimple.OptionSet;
+import joptsimple.OptionSpec;
+import joptsimple.ValueConverter;
+import joptsimple.util.PathConverter;
+import net.minecraftforge.srg2source.range.IRangeMapWriter;
+import net.minecraftforge.srg2source.range.RangeMap;
+import net.minecraftforge.srg2source.range.RangeMapFormat;
+
+// Converts range maps between any of the RangeMapFormats, mainly so binary maps can be exported to text for reading/diffing.
+public class RangeConvertMain {
+    private static final ValueConverter<Path> PATH_CONVERTER = new PathConverter();
+
+    public static void main(String[] args) throws IOException {
+        OptionParser parser = new OptionParser();
+        OptionSpec<?> helpArg = parser.acceptsAll(Arrays.asList("h", "help")).forHelp();
+        OptionSpec<Path> inputArg = parser.acceptsAll(Arrays.asList("in", "input")).withRequiredArg().withValuesConvertedBy(PATH_CONVERTER).required();
+        OptionSpec<Path> outputArg = parser.acceptsAll(Arrays.asList("out", "output")).withRequiredArg().withValuesConvertedBy(PATH_CONVERTER).required();
+        OptionSpec<String> formatArg = parser.accepts("format").withRequiredArg().ofType(String.class).defaultsTo("text");
+
+        try {
+            OptionSet options = parser.parse(args);
+
+            if (options.has(helpArg)) {
+                parser.printHelpOn(System.out);
+                return;
+            }
+
+            Path input = options.valueOf(inputArg);
+            Path output = options.valueOf(outputArg);
+            RangeMapFormat format = RangeMapFormat.valueOf(options.valueOf(formatArg).toUpperCase(Locale.ENGLISH));
+
+            System.out.println("Input:  " + input);
+            System.out.println("Output: " + output);
+            System.out.println("Format: " + format);
+
+            Map<String, RangeMap> ranges = RangeMapFormat.read(input);
+            List<String> names = new ArrayList<>(ranges.keySet());
+            Collections.sort(names);
+
+            try (IRangeMapWriter writer = format.createWriter(output)) {
+                for (String name : names)
+                    writer.write(ranges.get(name));
+            }
+
+            System.out.println("Converted " + names.size() + " files");
+        } catch (OptionException e) {
+            parser.printHelpOn(System.out);
+            e.printStackTrace();
+        }
+    }
+}
@@ -11,6 +11,7 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
 import java.util.stream.Collectors;
 
 import joptsimple.OptionException;
@@ -21,6 +22,10 @@ import joptsimple.ValueConverter;
 import joptsimple.util.PathConverter;
 import net.minecraftforge.srg2source.api.RangeExtractorBuilder;
 import net.minecraftforge.srg2source.api.SourceVersion;
+import net.minecraftforge.srg2source.range.RangeMapFormat;
+import net.minecraftforge.srg2source.util.ContentHash;
+import net.minecraftforge.srg2source.util.Metrics;
+import net.minecraftforge.srg2source.util.io.ConfLogger;
 
 public class RangeExtractMain {
     private static final ValueConverter<Path> PATH_CONVERTER = new PathConverter();
@@ -31,8 +36,6 @@ public class RangeExtractMain {
      *   This would need patching to support InputSupplier's
      *
      *   Runtime detection of JDT patch, and re launch in TransformingClassloader if not detected.
-     *
-     *   Find a way to pass RangeExtractor instance to our JDT hook so we can run multiple batches at once.
      */
 
     public static void main(String[] args) throws IOException {
@@ -41,8 +44,17 @@ public class RangeExtractMain {
         OptionSpec<Path> inputArg = parser.acceptsAll(Arrays.asList("in", "input")).withRequiredArg().withValuesConvertedBy(PATH_CONVERTER).required();
         OptionSpec<Path> outputArg = parser.acceptsAll(Arrays.asList("out", "output")).withRequiredArg().withValuesConvertedBy(PATH_CONVERTER).required();
         OptionSpec<Boolean> batch = parser.accepts("batch").withOptionalArg().ofType(Boolean.class).defaultsTo(true);
+        OptionSpec<Integer> threads = parser.accepts("threads").withRequiredArg().ofType(Integer.class).defaultsTo(1);
+        OptionSpec<String> format = parser.accepts("format").withRequiredArg().ofType(String.class).defaultsTo("text");
+        OptionSpec<String> hash = parser.accepts("hash").withRequiredArg().ofType(String.class).defaultsTo("md5");
+        OptionSpec<Path> cacheDir = parser.accepts("cache-dir").withRequiredArg().withValuesConvertedBy(PATH_CONVERTER);
+        OptionSpec<Long> cacheSize = parser.accepts("cache-size").withRequiredArg().ofType(Long.class).defaultsTo(0L);
         OptionSpec<Boolean> mixins = parser.accepts("mixins").withOptionalArg().ofType(Boolean.class).defaultsTo(true);
         OptionSpec<Boolean> mixins_fatal = parser.accepts("fatalmixins").withOptionalArg().ofType(Boolean.class).defaultsTo(false);
+        OptionSpec<Path> metricsArg = parser.accepts("metrics").withRequiredArg().withValuesConvertedBy(PATH_CONVERTER);
+        OptionSpec<Integer> slowestArg = parser.accepts("slowest").withRequiredArg().ofType(Integer.class).defaultsTo(10);
+        OptionSpec<String> logLevelArg = parser.accepts("log-level").withRequiredArg().ofType(String.class).defaultsTo("debug");
+        OptionSpec<Void> quietArg = parser.accepts("quiet");
         //TODO: Encoding argument
         OptionSpec<SourceVersion> jversionArg = parser.acceptsAll(Arrays.asList("sc", "source-compatibility")).withRequiredArg().ofType(SourceVersion.class).defaultsTo(SourceVersion.JAVA_1_8)
             .withValuesConvertedBy(new ValueConverter<SourceVersion>() {
@@ -73,14 +85,21 @@ public class RangeExtractMain {
             boolean fatalMixins = enableMixins && (options.has(mixins_fatal) && options.valueOf(mixins_fatal));
             System.out.println("Compat: " + options.valueOf(jversionArg));
             System.out.println("Output: " + options.valueOf(outputArg));
+            System.out.println("Format: " + options.valueOf(format));
             System.out.println("Batch:  " + options.valueOf(batch));
+            System.out.println("Threads: " + options.valueOf(threads));
+            System.out.println("Hash:   " + options.valueOf(hash));
             System.out.println("Mixins: " + enableMixins);
             System.out.println("Fatal:  " + fatalMixins);
 
             RangeExtractorBuilder builder = new RangeExtractorBuilder()
                 .sourceCompatibility(options.valueOf(jversionArg))
-                .output(options.valueOf(outputArg))
-                .batch(options.valueOf(batch));
+                .batch(options.valueOf(batch))
+                .threads(options.valueOf(threads))
+                .contentHash(ContentHash.valueOf(options.valueOf(hash).toUpperCase(Locale.ENGLISH)))
+                .logLevel(options.has(quietArg) ? ConfLogger.Level.QUIET : ConfLogger.Level.valueOf(options.valueOf(logLevelArg).toUpperCase(Locale.ENGLISH)));
+
+            builder.output(options.valueOf(outputArg), RangeMapFormat.valueOf(options.valueOf(format).toUpperCase(Locale.ENGLISH)));
 
             if (options.has(libArg)) {
                 options.valuesOf(libArg).forEach(v -> {
@@ -94,12 +113,24 @@ public class RangeExtractMain {
                 builder.input(v);
             });
 
+            if (options.has(cacheDir)) {
+                System.out.println("Cache:  " + options.valueOf(cacheDir) + " " + options.valueOf(cacheSize) + "MB");
+                builder.cacheDirectory(options.valueOf(cacheDir), options.valueOf(cacheSize) * 1024 * 1024);
+            }
+
             if (enableMixins)
                 builder.enableMixins();
             if (fatalMixins)
                 builder.fatalMixins();
 
-            builder.build().run();
+            Metrics metrics = new Metrics();
+            metrics.setSlowestLimit(options.valueOf(slowestArg));
+            builder.metrics(metrics).build().run();
+
+            if (options.has(metricsArg)) {
+                System.out.println("Metrics: " + options.valueOf(metricsArg));
+                metrics.writeJson(options.valueOf(metricsArg));
+            }
         } catch (OptionException e) {
             parser.printHelpOn(System.out);
             e.printStackTrace();
@@ -10,24 +10,33 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.function.Consumer;
+import java.util.zip.Deflater;
 
 import net.minecraftforge.srg2source.apply.RangeApplier;
+import net.minecraftforge.srg2source.util.Metrics;
 import net.minecraftforge.srg2source.util.io.ChainedInputSupplier;
+import net.minecraftforge.srg2source.util.io.ConfLogger.Level;
 import net.minecraftforge.srg2source.util.io.FolderSupplier;
+import net.minecraftforge.srg2source.util.io.ParallelZipOutputSupplier;
+import net.minecraftforge.srg2source.util.io.ZipFileSupplier;
 import net.minecraftforge.srg2source.util.io.ZipInputSupplier;
 import net.minecraftforge.srg2source.util.io.ZipOutputSupplier;
 
 public class RangeApplierBuilder {
     private PrintStream logStd = System.out;
     private PrintStream logErr = System.err;
+    private Level logLevel = Level.DEBUG;
     private List<InputSupplier> inputs = new ArrayList<>();
     private OutputSupplier output = null;
+    private Path outputZip = null;
+    private int compression = Deflater.DEFAULT_COMPRESSION;
     private Consumer<RangeApplier> range = null;
     private List<Consumer<RangeApplier>> srgs = new ArrayList<>();
     private List<Consumer<RangeApplier>> excs = new ArrayList<>();
@@ -35,6 +44,9 @@ public class RangeApplierBuilder {
     private boolean guessLambdas = false;
     private boolean guessLocals = false;
     private boolean sortImports = false;
+    private int threads = 1;
+    private Path planCache = null;
+    private Metrics metrics = null;
 
     public RangeApplierBuilder logger(PrintStream value) {
         this.logStd = value;
@@ -46,18 +58,45 @@ public class RangeApplierBuilder {
         return this;
     }
 
+    public RangeApplierBuilder logLevel(Level value) {
+        this.logLevel = value;
+        return this;
+    }
+
+    /*
+     * Only logs errors, nothing else is even formatted.
+     */
+    public RangeApplierBuilder quiet() {
+        return this.logLevel(Level.QUIET);
+    }
+
     public RangeApplierBuilder output(Path value) {
         try {
+            this.outputZip = null;
             if (Files.isDirectory(value))
                 this.output = FolderSupplier.create(value, null);
             else
-                this.output = new ZipOutputSupplier(value);
+                this.outputZip = value; // Created in build, once we know how many threads to compress with
         } catch (IOException e) {
             throw new IllegalArgumentException("Invalid output: " + value, e);
         }
         return this;
     }
 
+    public RangeApplierBuilder output(OutputSupplier value) {
+        this.outputZip = null;
+        this.output = value;
+        return this;
+    }
+
+    /*
+     * Deflater level used for zip outputs, ParallelZipOutputSupplier.STORED (0) writes entries uncompressed.
+     */
+    public RangeApplierBuilder compression(int value) {
+        this.compression = value;
+        return this;
+    }
+
     public RangeApplierBuilder srg(Path value) {
         this.srgs.add(a -> a.readSrg(value));
         return this;
@@ -100,6 +139,27 @@ public class RangeApplierBuilder {
         return this;
     }
 
+    public RangeApplierBuilder threads(int value) {
+        this.threads = value;
+        return this;
+    }
+
+    /*
+     * Directory to cache the renames for each file in, so re-applying unchanged files with unchanged mappings skips all the lookups.
+     */
+    public RangeApplierBuilder planCache(Path value) {
+        this.planCache = value;
+        return this;
+    }
+
+    /*
+     * Collects phase timings and counters for the run into the given object, see RangeApplier.getMetrics.
+     */
+    public RangeApplierBuilder metrics(Metrics value) {
+        this.metrics = value;
+        return this;
+    }
+
     @SuppressWarnings("resource")
     public RangeApplierBuilder input(Path value, Charset encoding) {
         if (value == null || !Files.exists(value))
@@ -110,7 +170,10 @@ public class RangeApplierBuilder {
             if (Files.isDirectory(value))
                 inputs.add(FolderSupplier.create(value, encoding));
             else if (filename.endsWith(".jar") || filename.endsWith(".zip")) {
-                inputs.add(ZipInputSupplier.create(value, encoding));
+                if (value.getFileSystem() == FileSystems.getDefault())
+                    inputs.add(ZipFileSupplier.create(value, encoding));
+                else
+                    inputs.add(ZipInputSupplier.create(value, encoding));
             } else
                 throw new IllegalArgumentException("Invalid input value: " + value);
         } catch (IOException e) {
@@ -146,6 +209,18 @@ public class RangeApplierBuilder {
     }
 
     public RangeApplier build() {
+        if (outputZip != null) {
+            try {
+                if (threads > 1 || compression != Deflater.DEFAULT_COMPRESSION)
+                    this.output = new ParallelZipOutputSupplier(outputZip, compression, threads);
+                else
+                    this.output = new ZipOutputSupplier(outputZip);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Invalid output: " + outputZip, e);
+            }
+            this.outputZip = null;
+        }
+
         if (output == null)
             throw new IllegalStateException("Builder State Exception: Missing Output");
         if (range == null)
@@ -154,6 +229,9 @@ public class RangeApplierBuilder {
         RangeApplier ret = new RangeApplier();
         ret.setLogger(logStd);
         ret.setErrorLogger(logErr);
+        ret.setLevel(logLevel);
+        if (metrics != null)
+            ret.setMetrics(metrics);
 
         if (this.inputs.size() == 1)
             ret.setInput(this.inputs.get(0));
@@ -166,6 +244,8 @@ public class RangeApplierBuilder {
         ret.setGuessLambdas(guessLambdas);
         ret.setGuessLocals(guessLocals);
         ret.setSortImports(sortImports);
+        ret.setThreads(threads);
+        ret.setPlanCache(planCache);
 
         srgs.forEach(e -> e.accept(ret));
         excs.forEach(e -> e.accept(ret));
@@ -7,15 +7,14 @@ package net.minecraftforge.srg2source.api;
 
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -24,20 +23,34 @@ import java.util.Locale;
 
 import org.jetbrains.annotations.Nullable;
 
+import net.minecraftforge.srg2source.extract.ExtractionCache;
 import net.minecraftforge.srg2source.extract.RangeExtractor;
+import net.minecraftforge.srg2source.range.IRangeMapWriter;
+import net.minecraftforge.srg2source.range.RangeMapFormat;
+import net.minecraftforge.srg2source.range.TextRangeMapWriter;
+import net.minecraftforge.srg2source.util.ContentHash;
+import net.minecraftforge.srg2source.util.Metrics;
 import net.minecraftforge.srg2source.util.io.ChainedInputSupplier;
+import net.minecraftforge.srg2source.util.io.ConfLogger.Level;
 import net.minecraftforge.srg2source.util.io.FolderSupplier;
+import net.minecraftforge.srg2source.util.io.ZipFileSupplier;
 import net.minecraftforge.srg2source.util.io.ZipInputSupplier;
 
 public class RangeExtractorBuilder {
     private SourceVersion sourceVersion = SourceVersion.JAVA_1_8;
     private PrintStream logStd = System.out;
     private PrintStream logErr = System.err;
-    private PrintWriter output = null;
+    private Level logLevel = Level.DEBUG;
+    private IRangeMapWriter output = null;
     private boolean batch = true;
+    private int threads = 1;
     private List<File> libraries = new ArrayList<>();
     private List<InputSupplier> inputs = new ArrayList<>();
     private File cache = null;
+    private Path cacheDir = null;
+    private long cacheSize = 0;
+    private ContentHash contentHash = ContentHash.MD5;
+    private Metrics metrics = null;
     private boolean enableMixins = false;
     private boolean fatalMixins = false;
     private boolean logWarnings = false;
@@ -75,6 +88,18 @@ public class RangeExtractorBuilder {
         return this;
     }
 
+    public RangeExtractorBuilder logLevel(Level value) {
+        this.logLevel = value;
+        return this;
+    }
+
+    /*
+     * Only logs errors, nothing else is even formatted.
+     */
+    public RangeExtractorBuilder quiet() {
+        return this.logLevel(Level.QUIET);
+    }
+
     public RangeExtractorBuilder output(File value) {
         return output(value, StandardCharsets.UTF_8);
     }
@@ -113,8 +138,25 @@ public class RangeExtractorBuilder {
     }
 
     public RangeExtractorBuilder output(PrintWriter value) {
-        if (output != null)
-            output.close();
+        return output(new TextRangeMapWriter(value));
+    }
+
+    public RangeExtractorBuilder output(Path value, RangeMapFormat format) {
+        try {
+            return output(format.createWriter(value));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public RangeExtractorBuilder output(IRangeMapWriter value) {
+        if (output != null) {
+            try {
+                output.close();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
         output = value;
         return this;
     }
@@ -128,6 +170,11 @@ public class RangeExtractorBuilder {
         return this;
     }
 
+    public RangeExtractorBuilder threads(int value) {
+        this.threads = value;
+        return this;
+    }
+
     public RangeExtractorBuilder library(File value) {
         this.libraries.add(value);
         return this;
@@ -149,7 +196,11 @@ public class RangeExtractorBuilder {
                 inputs.add(FolderSupplier.create(value, encoding));
             else if (filename.endsWith(".jar") || filename.endsWith(".zip")) {
                 try {
-                    inputs.add(ZipInputSupplier.create(value, encoding));
+                    // Sources are read more then once, for hashing and by JDT, so inflate them once up front.
+                    if (value.getFileSystem() == FileSystems.getDefault())
+                        inputs.add(ZipFileSupplier.create(value, encoding, ".java"));
+                    else
+                        inputs.add(ZipInputSupplier.create(value, encoding));
                 } catch (IOException e) {
                     throw new RuntimeException(e);
                 }
@@ -172,6 +223,24 @@ public class RangeExtractorBuilder {
         return this;
     }
 
+    public RangeExtractorBuilder cacheDirectory(Path value) {
+        return cacheDirectory(value, 0);
+    }
+
+    /*
+     * Persistent cache shared between runs, maxSize is in bytes. Zero or less means it is never trimmed.
+     */
+    public RangeExtractorBuilder cacheDirectory(Path value, long maxSize) {
+        this.cacheDir = value;
+        this.cacheSize = maxSize;
+        return this;
+    }
+
+    public RangeExtractorBuilder contentHash(ContentHash value) {
+        this.contentHash = value;
+        return this;
+    }
+
     public RangeExtractorBuilder enableMixins() {
         this.enableMixins = true;
         return this;
@@ -197,15 +266,28 @@ public class RangeExtractorBuilder {
         return this;
     }
 
+    /*
+     * Collects phase timings and counters for the run into the given object, see RangeExtractor.getMetrics.
+     */
+    public RangeExtractorBuilder metrics(Metrics value) {
+        this.metrics = value;
+        return this;
+    }
+
     public RangeExtractor build() {
         RangeExtractor ret = new RangeExtractor();
         ret.setLogger(logStd);
         ret.setErrorLogger(logErr);
+        ret.setLevel(logLevel);
+        if (metrics != null)
+            ret.setMetrics(metrics);
 
         if (output != null)
             ret.setOutput(output);
         ret.setSourceCompatibility(sourceVersion);
         ret.setBatchASTs(batch);
+        ret.setThreads(threads);
+        ret.setContentHash(contentHash);
 
         libraries.forEach(ret::addLibrary);
 
@@ -226,14 +308,17 @@ public class RangeExtractorBuilder {
             ret.failOnError();
 
         if (this.cache != null) {
-            try (InputStream fin = new FileInputStream(this.cache)) {
-                ret.loadCache(fin);
+            try {
+                ret.loadCache(this.cache.toPath());
             } catch (IOException e) {
                 System.out.println("Error Loading Caching: " + this.cache);
                 e.printStackTrace();
             }
         }
 
+        if (this.cacheDir != null)
+            ret.setCache(new ExtractionCache(this.cacheDir, this.cacheSize));
+
         return ret;
     }
 }
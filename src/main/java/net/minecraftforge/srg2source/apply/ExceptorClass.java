@@ -104,6 +104,11 @@ public class ExceptorClass {
             this.exceptions = null;
     }
 
+    @Nullable
+    Map<String, String[]> getParams() {
+        return this.params;
+    }
+
     @Nullable
     public String mapParam(String name, String desc, int index, String old) {
         String[] args = this.params.get(name + desc);
@@ -0,0 +1,581 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.apply;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import net.minecraftforge.srg2source.range.entries.StructuralEntry;
+import net.minecraftforge.srg2source.util.io.ConfLogger.Level;
+
+/*
+ * Rewrites the import section of a file after the renames have been applied.
+ * If the range map has the location of every import we use those, otherwise the header is lexed once, skipping whitespace and comments.
+ * So comments before or between imports, several imports on a line, and names split over lines are all fine.
+ * The new import block is then built in one pass and spliced in with a single replacement.
+ *
+ * Unneeded imports are removed, renamed classes are updated in place, and anything new is added after the last import.
+ * Wildcard imports are kept if something we need is in that package. Static imports are always kept,
+ * their owner is renamed, and so is the member if we can tell what it is.
+ */
+class ImportRewriter {
+    // Static imports sort as if 'static' was part of their package, so they end up between the 'org' and 'sun' packages
+    private static final Comparator<Item> SORT = Comparator.<Item, String>comparing(i -> i.pkg)
+        .thenComparing(i -> i.name);
+
+    private final RangeApplier applier;
+    private final boolean keepImports;
+    private final boolean sortImports;
+
+    ImportRewriter(RangeApplier applier, boolean keepImports, boolean sortImports) {
+        this.applier = applier;
+        this.keepImports = keepImports;
+        this.sortImports = sortImports;
+    }
+
+    /*
+     * The structures are from the file's range map, if it has the imports in it we don't need to lex the header.
+     * The edits are the renames that were applied to get data, so we can find where the imports moved to.
+     */
+    String rewrite(StringBuilder data, Set<String> newImports, List<StructuralEntry> structures, TextEdits edits) {
+        Header header = Header.fromStructures(data, structures, edits);
+        if (header == null)
+            header = Header.lex(data);
+        if (header.invalid != null)
+            applier.error("Error: Invalid import: " + header.invalid);
+
+        String newline = data.indexOf("\r\n") != -1 ? "\r\n" : "\n";
+        List<Import> imports = header.imports;
+
+        for (Import imp : imports)
+            resolve(imp, newImports);
+
+        filterImports(newImports);
+
+        if (imports.isEmpty()) {
+            if (newImports.isEmpty())
+                return data.toString();
+
+            // Right after the package line, or the start of the file if there isn't one
+            int index = 0;
+            if (header.packageEnd != -1)
+                index = isTrailingTrivia(data, header.packageEnd) ? nextLine(data, header.packageEnd) : header.packageEnd;
+
+            StringBuilder block = new StringBuilder();
+            for (String imp : sorted(newImports))
+                block.append(newline).append("import ").append(imp).append(';');
+            block.append(newline);
+
+            data.insert(index, block);
+            return data.toString();
+        }
+
+        updateBlock(data, imports, newImports, newline);
+        return data.toString();
+    }
+
+    private void resolve(Import imp, Set<String> newImports) {
+        String name = imp.name;
+        if (imp.isStatic) {
+            int idx = name.lastIndexOf('.');
+            String owner = name.substring(0, idx);
+            String member = name.substring(idx + 1);
+            if (!"*".equals(member))
+                member = applier.mapImportMember(owner, member);
+            imp.target = applier.mapImport(owner) + '.' + member;
+            imp.keep = true;
+        } else if (name.endsWith(".*")) {
+            String pkg = name.substring(0, name.length() - 1);
+            boolean used = newImports.removeIf(i -> i.startsWith(pkg) && i.indexOf('.', pkg.length()) == -1);
+            imp.target = applier.mapImport(name.substring(0, name.length() - 2)) + ".*";
+            imp.keep = used || keepImports;
+        } else {
+            imp.target = applier.mapImport(name);
+            imp.keep = newImports.remove(imp.target) || keepImports;
+        }
+    }
+
+    /*
+     * Keeps the existing layout, only touching the imports that are removed or renamed.
+     * If we are sorting, that is done on the new block before it is put back.
+     */
+    private void updateBlock(StringBuilder data, List<Import> imports, Set<String> newImports, String newline) {
+        int blockStart = lineStart(data, imports.get(0).start);
+        int blockEnd = getInsertPoint(data, imports.get(imports.size() - 1));
+        StringBuilder out = new StringBuilder(blockEnd - blockStart + newImports.size() * 64);
+        int cursor = blockStart;
+
+        for (Import imp : imports) {
+            if (!imp.keep) {
+                int lineStart = lineStart(data, imp.start);
+                boolean whole = isBlank(data, lineStart, imp.start) && isTrailingTrivia(data, imp.end);
+                // The whole line goes, including any comment after it. Otherwise just the declaration.
+                out.append(data, cursor, whole ? lineStart : imp.start);
+                cursor = whole ? nextLine(data, imp.end) : skipSpaces(data, imp.end);
+
+                // Collapse double empty lines
+                if (whole && endsWith(data, blockStart, out, '\n' + newline) && startsWith(data, cursor, newline))
+                    cursor += newline.length();
+            } else if (!imp.name.equals(imp.target)) {
+                out.append(data, cursor, imp.nameStart).append(imp.target);
+                cursor = imp.nameEnd;
+            }
+        }
+
+        if (cursor < blockEnd)
+            out.append(data, cursor, blockEnd);
+
+        if (!newImports.isEmpty()) {
+            if (blockStart + out.length() != 0 && !endsWith(data, blockStart, out, "\n"))
+                out.append(newline);
+            for (String imp : sorted(newImports))
+                out.append("import ").append(imp).append(';').append(newline);
+            out.append(newline);
+        }
+
+        if (sortImports)
+            sortBlock(out, newline);
+
+        data.replace(blockStart, Math.max(cursor, blockEnd), out.toString());
+    }
+
+    /*
+     * Sorts the imports in the block, with no empty lines between them. Comments on their own lines move with the import after them,
+     * comments at the end of a line stay with that import. Anything after the last import is left alone.
+     */
+    private static void sortBlock(StringBuilder block, String newline) {
+        List<Import> imports = Header.lex(block).imports;
+        if (imports.isEmpty())
+            return;
+
+        int blockStart = lineStart(block, imports.get(0).start);
+        List<Item> items = new ArrayList<>(imports.size());
+        StringBuilder comments = new StringBuilder();
+        int blockEnd = blockStart;
+
+        for (Import imp : imports) {
+            // Anything between the last import and this one can only be comments
+            int lineStart = blockEnd;
+            while (lineStart < imp.start) {
+                int lineEnd = Math.min(nextLine(block, lineStart), imp.start);
+                int end = lineEnd;
+                while (end > lineStart && Character.isWhitespace(block.charAt(end - 1)))
+                    end--;
+                if (!isBlank(block, lineStart, end))
+                    comments.append(block, lineStart, end).append(newline);
+                lineStart = lineEnd;
+            }
+
+            boolean trailing = isTrailingTrivia(block, imp.end);
+            StringBuilder text = new StringBuilder(comments);
+            text.append("import ").append(imp.isStatic ? "static " : "").append(imp.name).append(';');
+            text.append(block, imp.end, trailing ? lineEnd(block, imp.end) : imp.end);
+            items.add(new Item(imp.isStatic, imp.name, text.toString()));
+            comments.setLength(0);
+            blockEnd = trailing ? nextLine(block, imp.end) : imp.end;
+        }
+        blockEnd = Math.min(blockEnd, lineEnd(block, imports.get(imports.size() - 1).end));
+        items.sort(SORT);
+
+        StringBuilder out = new StringBuilder(blockEnd - blockStart);
+        for (Item item : items) {
+            if (out.length() != 0)
+                out.append(newline);
+            out.append(item.text);
+        }
+        block.replace(blockStart, blockEnd, out.toString());
+    }
+
+    private List<String> sorted(Set<String> newImports) {
+        List<String> ret = new ArrayList<>(newImports);
+        if (sortImports) {
+            List<Item> items = new ArrayList<>(ret.size());
+            for (String imp : ret)
+                items.add(new Item(false, imp, imp));
+            items.sort(SORT);
+            ret.clear();
+            for (Item item : items)
+                ret.add(item.text);
+        } else {
+            ret.sort(null);
+        }
+        return ret;
+    }
+
+    private void filterImports(Set<String> newImports) {
+        Iterator<String> itr  = newImports.iterator();
+        while (itr.hasNext()) {
+            if (itr.next().startsWith("java.lang.")) //java.lang classes can be referenced without imports
+                itr.remove();                        //We remove them here to allow for them to exist in src
+                                                     //But we will never ADD them
+        }
+
+        if (newImports.size() > 0 && applier.isLogging(Level.DEBUG)) {
+            applier.log("Adding " + newImports.size() + " imports");
+            for (String imp : newImports)
+                applier.log("        " + imp);
+        }
+    }
+
+    /*
+     * Where new imports go: the start of the first line after the last import that has more than whitespace and line comments.
+     */
+    private static int getInsertPoint(CharSequence data, Import last) {
+        if (!isTrailingTrivia(data, last.end))
+            return skipSpaces(data, last.end);
+
+        int pos = nextLine(data, last.end);
+        while (pos < data.length()) {
+            int end = skipSpaces(data, pos);
+            if (end < data.length() && data.charAt(end) == '\r')
+                end++;
+            if (end < data.length() && data.charAt(end) != '\n' && !startsWith(data, end, "//"))
+                break;
+            pos = nextLine(data, pos);
+        }
+        return pos;
+    }
+
+    private static int lineStart(CharSequence data, int pos) {
+        while (pos > 0 && data.charAt(pos - 1) != '\n')
+            pos--;
+        return pos;
+    }
+
+    /*
+     * The end of the line, not including the line break.
+     */
+    private static int lineEnd(CharSequence data, int pos) {
+        int end = nextLine(data, pos);
+        if (end > pos && data.charAt(end - 1) == '\n')
+            end--;
+        if (end > pos && data.charAt(end - 1) == '\r')
+            end--;
+        return end;
+    }
+
+    /*
+     * The start of the next line, or the end of the data.
+     */
+    private static int nextLine(CharSequence data, int pos) {
+        while (pos < data.length() && data.charAt(pos++) != '\n');
+        return pos;
+    }
+
+    private static int skipSpaces(CharSequence data, int pos) {
+        while (pos < data.length() && (data.charAt(pos) == ' ' || data.charAt(pos) == '\t'))
+            pos++;
+        return pos;
+    }
+
+    private static boolean isBlank(CharSequence data, int start, int end) {
+        for (int x = start; x < end; x++) {
+            if (!Character.isWhitespace(data.charAt(x)))
+                return false;
+        }
+        return true;
+    }
+
+    /*
+     * True if the rest of the line is only whitespace and comments.
+     */
+    private static boolean isTrailingTrivia(CharSequence data, int pos) {
+        while (true) {
+            pos = skipSpaces(data, pos);
+            if (pos < data.length() && data.charAt(pos) == '\r')
+                pos++;
+            if (pos >= data.length() || data.charAt(pos) == '\n' || startsWith(data, pos, "//"))
+                return true;
+            if (!startsWith(data, pos, "/*"))
+                return false;
+
+            int end = pos + 2;
+            while (end < data.length() && data.charAt(end) != '\n' && !startsWith(data, end, "*/"))
+                end++;
+            if (!startsWith(data, end, "*/"))
+                return false; // Multi line comment, leave it be
+            pos = end + 2;
+        }
+    }
+
+    private static boolean startsWith(CharSequence data, int pos, String value) {
+        if (pos + value.length() > data.length())
+            return false;
+        for (int x = 0; x < value.length(); x++) {
+            if (data.charAt(pos + x) != value.charAt(x))
+                return false;
+        }
+        return true;
+    }
+
+    /*
+     * If the text before the block, followed by what we have built so far, ends with value.
+     */
+    private static boolean endsWith(CharSequence data, int blockStart, StringBuilder out, String value) {
+        int pos = blockStart + out.length() - value.length();
+        if (pos < 0)
+            return false;
+        for (int x = 0; x < value.length(); x++, pos++) {
+            char c = pos < blockStart ? data.charAt(pos) : out.charAt(pos - blockStart);
+            if (c != value.charAt(x))
+                return false;
+        }
+        return true;
+    }
+
+    private static class Import {
+        private final int start;     // The 'import' keyword
+        private final int end;       // After the ';'
+        private final int nameStart;
+        private final int nameEnd;
+        private final boolean isStatic;
+        private final String name;   // With any whitespace or comments removed
+        private String target;
+        private boolean keep;
+
+        private Import(int start, int end, int nameStart, int nameEnd, boolean isStatic, String name) {
+            this.start = start;
+            this.end = end;
+            this.nameStart = nameStart;
+            this.nameEnd = nameEnd;
+            this.isStatic = isStatic;
+            this.name = name;
+        }
+    }
+
+    private static class Item {
+        private final String pkg;
+        private final String name;
+        private final String text;
+
+        private Item(boolean isStatic, String name, String text) {
+            int idx = name.lastIndexOf('.');
+            this.pkg = (isStatic ? "static " : "") + (idx == -1 ? "" : name.substring(0, idx));
+            this.name = name.substring(idx + 1);
+            this.text = text;
+        }
+    }
+
+    /*
+     * Lexes the package and import declarations, stopping at the first thing that is neither.
+     */
+    private static class Header {
+        private final CharSequence data;
+        private final List<Import> imports = new ArrayList<>();
+        private int packageEnd = -1;
+        private String invalid = null;
+        private int pos = 0;
+        private int nameStart;
+        private int nameEnd;
+
+        private Header(CharSequence data) {
+            this.data = data;
+        }
+
+        private static Header lex(CharSequence data) {
+            Header ret = new Header(data);
+            ret.lex();
+            return ret;
+        }
+
+        /*
+         * Reads only the import declarations the extractor found, shifted by the renames before them.
+         * Returns null if there are none, or they don't line up with the text, so the caller can lex the header instead.
+         */
+        private static Header fromStructures(CharSequence data, List<StructuralEntry> structures, TextEdits edits) {
+            Header ret = null;
+            for (StructuralEntry entry : structures) {
+                if (entry.getType() != StructuralEntry.Type.IMPORT)
+                    continue;
+
+                int start = edits.map(entry.getStart(), entry.getStart() + entry.getLength());
+                if (start == -1 || start + entry.getLength() > data.length())
+                    return null;
+
+                if (ret == null)
+                    ret = new Header(data);
+                ret.pos = start;
+                if (!"import".equals(ret.readIdentifier()) || !ret.readImport(start) || ret.pos != start + entry.getLength())
+                    return null;
+            }
+            return ret;
+        }
+
+        private void lex() {
+            while (true) {
+                skipTrivia();
+                if (pos >= data.length())
+                    return;
+
+                char c = data.charAt(pos);
+                if (c == ';') { // Empty declarations are allowed between imports
+                    pos++;
+                    continue;
+                }
+
+                int start = pos;
+                if (c == '@') { // Annotations on the package, in package-info files
+                    if (packageEnd != -1 || !imports.isEmpty())
+                        return;
+                    pos++;
+                    skipTrivia();
+                    String name = readName();
+                    if (name == null || "interface".equals(name)) {
+                        pos = start;
+                        return;
+                    }
+                    skipTrivia();
+                    if (pos < data.length() && data.charAt(pos) == '(')
+                        skipParens();
+                    continue;
+                }
+
+                String word = readIdentifier();
+                if ("package".equals(word)) {
+                    skipTrivia();
+                    if (readName() == null || !expect(';')) {
+                        pos = start;
+                        return;
+                    }
+                    packageEnd = pos;
+                } else if ("import".equals(word)) {
+                    if (!readImport(start)) {
+                        int end = nextLine(data, start);
+                        invalid = data.subSequence(start, end).toString().trim();
+                        pos = start;
+                        return;
+                    }
+                } else {
+                    pos = start;
+                    return;
+                }
+            }
+        }
+
+        /*
+         * The rest of an import declaration, after the 'import' keyword that was at start.
+         */
+        private boolean readImport(int start) {
+            skipTrivia();
+            int mark = pos;
+            boolean isStatic = "static".equals(readIdentifier());
+            if (isStatic)
+                skipTrivia();
+            else
+                pos = mark;
+
+            String name = readName();
+            int nameStart = this.nameStart;
+            int nameEnd = this.nameEnd;
+            if (name == null || (isStatic && name.indexOf('.') == -1) || !expect(';'))
+                return false;
+            imports.add(new Import(start, pos, nameStart, nameEnd, isStatic, name));
+            return true;
+        }
+
+        private boolean expect(char c) {
+            skipTrivia();
+            if (pos >= data.length() || data.charAt(pos) != c)
+                return false;
+            pos++;
+            return true;
+        }
+
+        private String readIdentifier() {
+            int start = pos;
+            if (pos >= data.length() || !Character.isJavaIdentifierStart(data.charAt(pos)))
+                return null;
+            while (pos < data.length() && Character.isJavaIdentifierPart(data.charAt(pos)))
+                pos++;
+            return data.subSequence(start, pos).toString();
+        }
+
+        /*
+         * A dotted name, possibly ending in '*'. Whitespace and comments are allowed around the dots.
+         */
+        private String readName() {
+            nameStart = pos;
+            String part = readIdentifier();
+            if (part == null)
+                return null;
+
+            StringBuilder ret = new StringBuilder(part);
+            nameEnd = pos;
+            while (true) {
+                skipTrivia();
+                if (pos >= data.length() || data.charAt(pos) != '.') {
+                    pos = nameEnd;
+                    return ret.toString();
+                }
+                pos++;
+                skipTrivia();
+                if (pos < data.length() && data.charAt(pos) == '*') {
+                    pos++;
+                    nameEnd = pos;
+                    return ret.append(".*").toString();
+                }
+                part = readIdentifier();
+                if (part == null)
+                    return null;
+                ret.append('.').append(part);
+                nameEnd = pos;
+            }
+        }
+
+        private void skipTrivia() {
+            while (pos < data.length()) {
+                char c = data.charAt(pos);
+                if (Character.isWhitespace(c)) {
+                    pos++;
+                } else if (startsWith(data, pos, "//")) {
+                    pos = nextLine(data, pos);
+                } else if (startsWith(data, pos, "/*")) {
+                    pos += 2;
+                    while (pos < data.length() && !startsWith(data, pos, "*/"))
+                        pos++;
+                    pos = Math.min(pos + 2, data.length());
+                } else {
+                    return;
+                }
+            }
+        }
+
+        /*
+         * Annotation arguments, these can have anything in them so we need to be careful of strings.
+         */
+        private void skipParens() {
+            int depth = 0;
+            while (pos < data.length()) {
+                skipTrivia();
+                if (pos >= data.length())
+                    return;
+                char c = data.charAt(pos);
+                if (c == '"' || c == '\'') {
+                    boolean block = startsWith(data, pos, "\"\"\"");
+                    pos += block ? 3 : 1;
+                    while (pos < data.length()) {
+                        char n = data.charAt(pos);
+                        if (n == '\\')
+                            pos++;
+                        else if (block ? startsWith(data, pos, "\"\"\"") : n == c)
+                            break;
+                        pos++;
+                    }
+                    pos = Math.min(pos + (block ? 3 : 1), data.length());
+                    continue;
+                }
+                pos++;
+                if (c == '(')
+                    depth++;
+                else if (c == ')' && --depth == 0)
+                    return;
+            }
+        }
+    }
+}
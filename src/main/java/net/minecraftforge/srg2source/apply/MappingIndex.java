@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.apply;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.minecraftforge.srgutils.IMappingFile;
+
+/*
+ * All loaded srg and exc files merged into a single set of tables, so a rename is one lookup for the owner and one for the member,
+ * instead of walking every mapping file for every reference.
+ * Precedence matches the old per file loops: the first srg file to know a class, field, method or parameter wins,
+ * and exc parameter names win over all of them.
+ */
+class MappingIndex {
+    static MappingIndex create(List<IMappingFile> srgs, Map<String, ExceptorClass> excs) {
+        MappingIndex ret = new MappingIndex();
+        for (IMappingFile srg : srgs) {
+            for (IMappingFile.IClass cls : srg.getClasses()) {
+                ClassEntry entry = ret.getOrCreate(cls.getOriginal());
+                if (entry.mapped == null)
+                    entry.mapped = ret.pool(cls.getMapped());
+
+                for (IMappingFile.IField fld : cls.getFields())
+                    entry.fields.putIfAbsent(ret.pool(fld.getOriginal()), ret.pool(fld.getMapped()));
+
+                for (IMappingFile.IMethod mtd : cls.getMethods()) {
+                    MethodEntry method = entry.getOrCreate(ret.pool(mtd.getOriginal()), ret.pool(mtd.getDescriptor()));
+                    if (method.mapped == null)
+                        method.mapped = ret.pool(mtd.getMapped());
+                    for (IMappingFile.IParameter param : mtd.getParameters()) {
+                        int index = param.getIndex();
+                        if (index < 0)
+                            continue;
+                        if (method.params.length <= index)
+                            method.params = Arrays.copyOf(method.params, index + 1);
+                        if (method.params[index] == null)
+                            method.params[index] = ret.pool(param.getMapped());
+                    }
+                }
+            }
+        }
+
+        excs.forEach((owner, exc) -> {
+            Map<String, String[]> params = exc.getParams();
+            if (params == null)
+                return;
+            ClassEntry entry = ret.getOrCreate(owner);
+            params.forEach((key, args) -> {
+                // Exc keys are the method name and descriptor joined together.
+                int idx = key.indexOf('(');
+                if (idx == -1)
+                    return;
+                MethodEntry method = entry.getOrCreate(ret.pool(key.substring(0, idx)), ret.pool(key.substring(idx)));
+                method.exc = args;
+            });
+        });
+
+        ret.pool.clear();
+        return ret;
+    }
+
+    private final Map<String, ClassEntry> classes = new HashMap<>();
+    private final Map<String, String> pool = new HashMap<>(); // Only used while building, so the same name from multiple files is one instance.
+
+    private MappingIndex() {}
+
+    private String pool(String value) {
+        if (value == null)
+            return null;
+        String ret = pool.putIfAbsent(value, value);
+        return ret == null ? value : ret;
+    }
+
+    private ClassEntry getOrCreate(String owner) {
+        return classes.computeIfAbsent(pool(owner), k -> new ClassEntry());
+    }
+
+    String mapClass(String name) {
+        ClassEntry entry = classes.get(name);
+        return entry == null || entry.mapped == null ? name : entry.mapped;
+    }
+
+    String mapField(String owner, String name) {
+        ClassEntry entry = classes.get(owner);
+        if (entry == null)
+            return name;
+        return entry.fields.getOrDefault(name, name);
+    }
+
+    /*
+     * Returns null if no srg knows this method, so the caller can fall back to other sources.
+     */
+    String mapMethod(String owner, String name, String desc) {
+        MethodEntry method = getMethod(owner, name, desc);
+        return method == null ? null : method.mapped;
+    }
+
+    /*
+     * Returns null if neither the exc or srg files know this parameter.
+     */
+    String mapParam(String owner, String name, String desc, int index) {
+        MethodEntry method = getMethod(owner, name, desc);
+        if (method == null || index < 0)
+            return null;
+        if (method.exc != null && index < method.exc.length)
+            return method.exc[index];
+        return index < method.params.length ? method.params[index] : null;
+    }
+
+    /*
+     * The mapped name shared by every method with this name, or null if they don't agree or there is no mapping.
+     */
+    String mapMethodName(String owner, String name) {
+        ClassEntry entry = classes.get(owner);
+        Map<String, MethodEntry> descs = entry == null ? null : entry.methods.get(name);
+        if (descs == null)
+            return null;
+
+        String ret = null;
+        for (MethodEntry method : descs.values()) {
+            if (method.mapped == null || (ret != null && !ret.equals(method.mapped)))
+                return null;
+            ret = method.mapped;
+        }
+        return ret;
+    }
+
+    private MethodEntry getMethod(String owner, String name, String desc) {
+        ClassEntry entry = classes.get(owner);
+        if (entry == null)
+            return null;
+        Map<String, MethodEntry> descs = entry.methods.get(name);
+        return descs == null ? null : descs.get(desc);
+    }
+
+    private static class ClassEntry {
+        private String mapped;
+        private final Map<String, String> fields = new HashMap<>();
+        private final Map<String, Map<String, MethodEntry>> methods = new HashMap<>();
+
+        private MethodEntry getOrCreate(String name, String desc) {
+            return methods.computeIfAbsent(name, k -> new HashMap<>()).computeIfAbsent(desc, k -> new MethodEntry());
+        }
+    }
+
+    private static class MethodEntry {
+        private String mapped;
+        private String[] params = new String[0];
+        private String[] exc;
+    }
+}
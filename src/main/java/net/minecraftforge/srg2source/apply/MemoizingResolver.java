@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.apply;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import net.minecraftforge.srg2source.util.ClassNames;
+
+/*
+ * Remembers every name resolved during a single run, the same owners and members show up in thousands of files.
+ * Keys are nested maps instead of joined strings, so a hit doesn't allocate anything.
+ * Safe to use from the parallel workers, two threads may both resolve a miss, but they will get the same answer.
+ */
+class MemoizingResolver {
+    private final RangeApplier applier;
+    private final Map<String, String> classes = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, String>> fields = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Map<String, String>>> methods = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+
+    MemoizingResolver(RangeApplier applier) {
+        this.applier = applier;
+    }
+
+    /*
+     * The mapped class name, with local class numbers stripped, as used for class references in code.
+     */
+    String mapClass(String name) {
+        String ret = classes.get(name);
+        if (ret != null) {
+            hits.increment();
+            return ret;
+        }
+
+        long start = System.nanoTime();
+        ret = ClassNames.fixLocalClassName(applier.mapClass(name));
+        finish(start);
+        classes.put(name, ret);
+        return ret;
+    }
+
+    String mapField(String owner, String name) {
+        Map<String, String> cache = get(fields, owner);
+        String ret = cache.get(name);
+        if (ret != null) {
+            hits.increment();
+            return ret;
+        }
+
+        long start = System.nanoTime();
+        ret = applier.mapField(owner, name);
+        finish(start);
+        cache.put(name, ret);
+        return ret;
+    }
+
+    String mapMethod(String owner, String name, String desc) {
+        Map<String, String> cache = get(get(methods, owner), name);
+        String ret = cache.get(desc);
+        if (ret != null) {
+            hits.increment();
+            return ret;
+        }
+
+        long start = System.nanoTime();
+        ret = applier.mapMethod(owner, name, desc);
+        finish(start);
+        cache.put(desc, ret);
+        return ret;
+    }
+
+    private static <V> Map<String, V> get(Map<String, Map<String, V>> map, String key) {
+        Map<String, V> ret = map.get(key);
+        if (ret == null)
+            ret = map.computeIfAbsent(key, k -> new ConcurrentHashMap<>());
+        return ret;
+    }
+
+    private void finish(long start) {
+        nanos.add(System.nanoTime() - start);
+        misses.increment();
+    }
+
+    long getHits() {
+        return hits.sum();
+    }
+
+    long getMisses() {
+        return misses.sum();
+    }
+
+    /*
+     * Time spent resolving misses, hits are just a map lookup.
+     */
+    long getNanos() {
+        return nanos.sum();
+    }
+
+    String getStats() {
+        long hit = getHits();
+        long total = hit + getMisses();
+        return hit + " hits, " + getMisses() + " misses (" + (total == 0 ? 0 : hit * 100 / total) + "% hit rate), " +
+            (getNanos() / 1_000_000) + "ms resolving";
+    }
+}
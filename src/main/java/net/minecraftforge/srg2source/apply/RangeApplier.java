@@ -5,6 +5,8 @@
 
 package net.minecraftforge.srg2source.apply;
 
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -13,11 +15,12 @@ import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
@@ -25,14 +28,16 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import net.minecraftforge.srg2source.api.InputSupplier;
 import net.minecraftforge.srg2source.api.OutputSupplier;
 import net.minecraftforge.srg2source.range.RangeMap;
+import net.minecraftforge.srg2source.range.RangeMapFormat;
+import net.minecraftforge.srg2source.range.SplitRangeMapReader;
 import net.minecraftforge.srg2source.range.entries.ClassLiteral;
 import net.minecraftforge.srg2source.range.entries.ClassPackageReference;
 import net.minecraftforge.srg2source.range.entries.ClassReference;
@@ -43,14 +48,16 @@ import net.minecraftforge.srg2source.range.entries.MethodLiteral;
 import net.minecraftforge.srg2source.range.entries.MethodReference;
 import net.minecraftforge.srg2source.range.entries.ParameterReference;
 import net.minecraftforge.srg2source.range.entries.RangeEntry;
+import net.minecraftforge.srg2source.util.ClassNames;
+import net.minecraftforge.srg2source.util.ContentHash;
+import net.minecraftforge.srg2source.util.Metrics;
 import net.minecraftforge.srg2source.util.Util;
 import net.minecraftforge.srg2source.util.io.ConfLogger;
+import net.minecraftforge.srg2source.util.io.ConfLogger.Level;
 import net.minecraftforge.srgutils.IMappingFile;
 
 @SuppressWarnings("unused")
 public class RangeApplier extends ConfLogger<RangeApplier> {
-    private static Pattern IMPORT = Pattern.compile("import\\s+((?<static>static)\\s+)?(?<class>[A-Za-z][A-Za-z0-9_\\.]*\\*?);.*");
-
     private List<IMappingFile> srgs = new ArrayList<>();
     private Map<String, String> clsSrc2Internal = new HashMap<>();
     private Map<String, ExceptorClass> excs = Collections.emptyMap();
@@ -58,18 +65,32 @@ public class RangeApplier extends ConfLogger<RangeApplier> {
     private InputSupplier input = null;
     private OutputSupplier output = null;
     private Map<String, RangeMap> range = new HashMap<>();
+    private final List<Closeable> rangeReaders = new ArrayList<>(); // Anything the range maps still read from.
     private ClassMeta meta = null;
     private Map<String, String> guessLambdas = null;
     private boolean guessLocals = false;
     private boolean sortImports = false;
+    private int threads = 1;
+    private final ThreadLocal<List<Runnable>> buffer = new ThreadLocal<>();
+    private final List<String> mappingHashes = new ArrayList<>(); // Content of every srg/exc file loaded, in order, for the plan cache key.
+    private RenamePlanCache planCache = null;
+    private MappingIndex index = null;
+    private final ClassNames names = new ClassNames(); // Conversion cache, lives as long as this applier.
+    private MemoizingResolver resolver = null;
+    private ImportRewriter imports = null;
+    private Metrics metrics = new Metrics();
 
     public void readSrg(Path srg) {
-        try (InputStream in = Files.newInputStream(srg)) {
-            IMappingFile map = IMappingFile.load(in);
-            srgs.add(map); //TODO: Add merge function to SrgUtils?
+        long start = metrics.start();
+        try {
+            byte[] data = Files.readAllBytes(srg);
+            mappingHashes.add("srg " + ContentHash.MD5.hash(data));
+            IMappingFile map = IMappingFile.load(new ByteArrayInputStream(data));
+            srgs.add(map); // Merged into the MappingIndex on first use
+            index = null;
 
             map.getClasses().forEach(cls -> {
-                clsSrc2Internal.put(cls.getOriginal().replace('/', '.').replace('$', '.'), cls.getOriginal());
+                clsSrc2Internal.put(names.internalToSource(cls.getOriginal()), cls.getOriginal());
 
                 if (guessLambdas != null) {
                     cls.getMethods().stream()
@@ -82,6 +103,7 @@ public class RangeApplier extends ConfLogger<RangeApplier> {
         } catch (IOException e) {
             throw new IllegalStateException("Failed to read SRG: " + srg, e);
         }
+        metrics.stop("load", start);
     }
 
     public void readExc(Path value) {
@@ -89,11 +111,15 @@ public class RangeApplier extends ConfLogger<RangeApplier> {
     }
 
     public void readExc(Path value, Charset encoding) {
+        long start = metrics.start();
         try {
+            mappingHashes.add("exc " + ContentHash.MD5.hash(Files.readAllBytes(value)));
             this.excs = ExceptorClass.create(value, encoding, this.excs);
+            this.index = null;
         } catch (IOException e) {
             throw new IllegalStateException("Failed to read EXC: " + value, e);
         }
+        metrics.stop("load", start);
     }
 
     public void setGuessLambdas(boolean value) {
@@ -126,25 +152,45 @@ public class RangeApplier extends ConfLogger<RangeApplier> {
     }
 
     public void readRangeMap(File value) {
-        try (InputStream in = Files.newInputStream(value.toPath())) {
-            this.range.putAll(RangeMap.readAll(in));
-        } catch (IOException e) {
-            throw new IllegalArgumentException("Invalid range map: " + value);
-        }
+        readRangeMap(value.toPath());
     }
 
     public void readRangeMap(Path value) {
-        try (InputStream in = Files.newInputStream(value)) {
-            this.range.putAll(RangeMap.readAll(in));
+        long start = metrics.start();
+        try {
+            if (RangeMapFormat.detect(value) == RangeMapFormat.ZIP) {
+                // Kept open so each file's map is only inflated when it is applied, closed at the end of run.
+                SplitRangeMapReader reader = SplitRangeMapReader.openZip(value);
+                this.rangeReaders.add(reader);
+                this.range.putAll(reader.getRangeMaps());
+            } else
+                this.range.putAll(RangeMapFormat.read(value));
         } catch (IOException e) {
             throw new IllegalArgumentException("Invalid range map: " + value);
         }
+        metrics.stop("load", start);
     }
 
     public void keepImports(boolean value) {
         this.keepImports = value;
     }
 
+    public void setThreads(int value) {
+        this.threads = Math.max(1, value);
+    }
+
+    public void setPlanCache(Path value) {
+        this.planCache = value == null ? null : new RenamePlanCache(value);
+    }
+
+    public void setMetrics(Metrics value) {
+        this.metrics = value;
+    }
+
+    public Metrics getMetrics() {
+        return this.metrics;
+    }
+
     public void run() throws IOException {
         if (input == null)
             throw new IllegalStateException("Missing Range Apply input");
@@ -153,57 +199,304 @@ public class RangeApplier extends ConfLogger<RangeApplier> {
         if (range == null)
             throw new IllegalStateException("Missing Range Apply range");
 
-        meta = ClassMeta.create(this, range);
+        long start = metrics.start();
+        try {
+            meta = ClassMeta.create(this, range);
+            getIndex(); // Build it now, before there are multiple threads looking things up
+            resolver = new MemoizingResolver(this);
+            imports = new ImportRewriter(this, keepImports, sortImports);
+            metrics.stop("index", start);
+
+            List<String> paths = new ArrayList<>(range.keySet());
+            Collections.sort(paths);
+            metrics.add("files", paths.size());
+
+            if (planCache != null)
+                planCache.setContext(getMappingFingerprint(paths));
+
+            log("Processing " + paths.size() + " files");
+
+            if (threads > 1 && paths.size() > 1)
+                parallelRun(paths);
+            else {
+                for (String filePath : paths)
+                    write(processFile(filePath));
+            }
+
+            if (planCache != null) {
+                log("Rename plan cache: " + planCache.getHits() + " hits, " + planCache.getMisses() + " misses");
+                metrics.add("cache.hits", planCache.getHits());
+                metrics.add("cache.misses", planCache.getMisses());
+            }
+            log("Resolver: " + resolver.getStats());
+            metrics.add("resolver.hits", resolver.getHits());
+            metrics.add("resolver.misses", resolver.getMisses());
+            metrics.time("resolve", resolver.getNanos()); // Already part of 'plan', but worth knowing how much of it is lookups
+        } finally {
+            // Even if a file failed, so zip outputs are finished and their compression threads stopped
+            try {
+                output.close();
+            } finally {
+                for (Closeable reader : rangeReaders)
+                    reader.close();
+                rangeReaders.clear();
+            }
+        }
+        metrics.stop("total", start);
+        if (isLogging(Level.INFO)) {
+            log("Timings: " + metrics.getSummary());
+            List<String> slowest = metrics.getSlowestSummary();
+            if (!slowest.isEmpty()) {
+                log("Slowest files:");
+                slowest.forEach(line -> log("  " + line));
+            }
+        }
+    }
+
+    /*
+     * Everything besides the file itself that can change a rename plan.
+     * Meta from other files feeds into method names through ClassMeta, so any file with meta is included.
+     */
+    private String getMappingFingerprint(List<String> paths) {
+        StringBuilder buf = new StringBuilder();
+        mappingHashes.forEach(h -> buf.append(h).append('\n'));
+        buf.append("lambdas ").append(guessLambdas != null).append('\n');
+        buf.append("locals ").append(guessLocals).append('\n');
+        for (String path : paths) {
+            RangeMap map = range.get(path);
+            if (!map.getMeta().isEmpty())
+                buf.append("meta ").append(path).append(' ').append(map.getHash()).append('\n');
+        }
+        return buf.toString();
+    }
 
-        List<String> paths = new ArrayList<>(range.keySet());
-        Collections.sort(paths);
+    /*
+     * Processes files on a bounded pool, but consumes the results in the same sorted order as the single threaded path.
+     * All writes happen on the calling thread, so the OutputSupplier never sees concurrent access and its entries stay in order.
+     * Log lines for each file are buffered on the worker and replayed right before that file is written.
+     */
+    private void parallelRun(List<String> paths) throws IOException {
+        log("Processing on " + threads + " threads");
 
-        log("Processing " + paths.size() + " files");
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Deque<Future<ProcessedFile>> pending = new ArrayDeque<>();
+            Iterator<String> itr = paths.iterator();
+            while (itr.hasNext() || !pending.isEmpty()) {
+                // Keep a small window of work in flight, so we don't hold every processed file in memory.
+                while (itr.hasNext() && pending.size() < threads * 2) {
+                    String filePath = itr.next();
+                    pending.add(executor.submit(() -> processBuffered(filePath)));
+                }
 
-        for (String filePath : paths) {
-            log("Start Processing: " + filePath);
-            InputStream stream = input.getInput(filePath);
+                ProcessedFile file;
+                try {
+                    file = pending.poll().get();
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof RuntimeException ? (RuntimeException)e.getCause() : new RuntimeException(e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                }
 
-            //no stream? what?
-            if (stream == null) {
-                // yeah.. nope.
-                log("Data not found: " + filePath);
-                continue;
-            }
-            Charset encoding = input.getEncoding(filePath);
-            if (encoding == null)
-                encoding = StandardCharsets.UTF_8;
-
-            String data = new String(Util.readStream(stream), encoding);
-            stream.close();
-
-            // process
-            List<String> out = processJavaSourceFile(filePath, data, range.get(filePath), meta);
-            filePath = out.get(0);
-            data = out.get(1);
-
-            // write.
-            if (data != null) {
-                OutputStream outStream = output.getOutput(filePath);
-                if (outStream == null)
-                    throw new IllegalStateException("Could not get output stream form: " + filePath);
-                outStream.write(data.getBytes(encoding));
-                outStream.close();
+                file.logs.forEach(Runnable::run);
+                if (file.error != null) {
+                    metrics.increment("errors");
+                    if (file.error instanceof IOException)
+                        throw (IOException)file.error;
+                    throw file.error instanceof RuntimeException ? (RuntimeException)file.error : new RuntimeException(file.error);
+                }
+                write(file);
             }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private ProcessedFile processBuffered(String filePath) {
+        List<Runnable> logs = new ArrayList<>();
+        this.buffer.set(logs);
+        try {
+            ProcessedFile ret = processFile(filePath);
+            ret.logs = logs;
+            return ret;
+        } catch (Throwable e) {
+            ProcessedFile ret = new ProcessedFile(null, null);
+            ret.logs = logs;
+            ret.error = e;
+            return ret;
+        } finally {
+            this.buffer.remove();
+        }
+    }
+
+    private ProcessedFile processFile(String filePath) throws IOException {
+        log(Level.DEBUG, () -> "Start Processing: " + filePath);
+        long start = metrics.start();
+        InputStream stream = input.getInput(filePath);
+
+        //no stream? what?
+        if (stream == null) {
+            // yeah.. nope.
+            log("Data not found: " + filePath);
+            metrics.increment("missing");
+            return new ProcessedFile(null, null);
+        }
+        Charset encoding = input.getEncoding(filePath);
+        if (encoding == null)
+            encoding = StandardCharsets.UTF_8;
 
-            log("End  Processing: " + filePath);
+        byte[] raw = Util.readStream(stream);
+        stream.close();
+        String data = new String(raw, encoding);
+        metrics.stop("read", start);
+
+        // process
+        List<String> out = processJavaSourceFile(filePath, data, range.get(filePath), meta);
+        String newPath = out.get(0);
+        String newData = out.get(1);
+
+        if (newData == null)
+            return new ProcessedFile(newPath, null);
+
+        // Nothing was renamed, so pass the original bytes through instead of encoding them again.
+        // This also keeps anything the decode would have mangled, like malformed sequences.
+        if (newData == data)
+            return new ProcessedFile(newPath, raw);
+
+        return new ProcessedFile(newPath, newData.getBytes(encoding));
+    }
+
+    private void write(ProcessedFile file) throws IOException {
+        if (file.path == null)
+            return;
+
+        if (file.data != null) {
+            long start = metrics.start();
+            OutputStream outStream = output.getOutput(file.path);
+            if (outStream == null)
+                throw new IllegalStateException("Could not get output stream form: " + file.path);
+            outStream.write(file.data);
+            outStream.close();
+            metrics.stop("write", start);
+        }
+
+        if (isLogging(Level.DEBUG)) {
+            log("End  Processing: " + file.path);
             log("");
         }
+    }
+
+    @Override
+    protected void log(String s) {
+        if (!isLogging(Level.INFO))
+            return;
+        List<Runnable> logs = this.buffer.get();
+        if (logs == null)
+            super.log(s);
+        else
+            logs.add(() -> super.log(s));
+    }
 
-        output.close();
+    @Override
+    public void error(String s) {
+        List<Runnable> logs = this.buffer.get();
+        if (logs == null)
+            super.error(s);
+        else
+            logs.add(() -> super.error(s));
     }
 
+    private static class ProcessedFile {
+        private final String path;
+        private final byte[] data;
+        private List<Runnable> logs = Collections.emptyList();
+        private Throwable error = null;
+
+        private ProcessedFile(String path, byte[] data) {
+            this.path = path;
+            this.data = data;
+        }
+    }
+
+    /*
+     * Returns the new file name, and the new contents. The contents will be the same instance as data if nothing was changed.
+     */
     private List<String> processJavaSourceFile(String fileName, String data, RangeMap rangeList, ClassMeta meta) throws IOException {
-        StringBuilder outData = new StringBuilder();
-        outData.append(data);
+        long started = metrics.start();
+        long allocated = metrics.allocated();
+        long start = started;
+        rangeList = rangeList.load(); // Lazy maps decode their block once here, instead of for every pass over the entries.
+        metrics.addEntries(rangeList);
+        RenamePlan plan = planCache == null ? null : planCache.get(fileName, rangeList.getHash());
+        if (plan != null) {
+            log(Level.DEBUG, "Using cached rename plan");
+            checkRanges(fileName, data, rangeList, plan.getEdits());
+        } else {
+            plan = createPlan(fileName, data, rangeList, meta);
+            if (planCache != null) {
+                try {
+                    planCache.put(fileName, rangeList.getHash(), plan);
+                } catch (IOException e) {
+                    log("Failed to write rename plan for " + fileName + ": " + e.getMessage());
+                }
+            }
+        }
 
-        Set<String> importsToAdd = new TreeSet<>();
+        start = metrics.stop("plan", start);
+        metrics.add("renames", plan.getEdits().size());
+
+        // Lastly, update imports - this == separate from symbol range manipulation above
+        String outString = imports.rewrite(plan.getEdits().apply(data), new TreeSet<>(plan.getImports()), rangeList.getStructures(), plan.getEdits());
+        if (plan.getEdits().isEmpty() && outString.equals(data))
+            outString = data;
+        metrics.stop("rewrite", start);
+        metrics.file(fileName, started, allocated);
+
+        // rename?
+        fileName = fileName.replace('\\', '/');
+        if (!fileName.equals(plan.getFileName())) {
+            if (isLogging(Level.DEBUG))
+                log("Rename file " + fileName + " -> " + plan.getFileName());
+            fileName = plan.getFileName();
+        }
+
+        return Arrays.asList(fileName, outString);
+    }
+
+    /*
+     * The sanity check from createPlan, without any of the mapping, for when the plan came from the cache.
+     */
+    private void checkRanges(String fileName, String data, RangeMap rangeList, TextEdits edits) {
+        int edit = 0;
         int shift = 0;
+        for (RangeEntry info : rangeList.getEntries()) {
+            while (edit < edits.size() && edits.getStart(edit) < info.getStart()) {
+                shift += edits.getValue(edit).length() - (edits.getEnd(edit) - edits.getStart(edit));
+                edit++;
+            }
+            checkRange(fileName, data, info, shift);
+        }
+    }
+
+    private static String checkRange(String fileName, String data, RangeEntry info, int shift) {
+        int start = info.getStart();
+        int end = start + info.getLength();
+        String expectedOldText = info.getText();
+        String oldName = end > data.length() ? "" : data.substring(start, end);
+
+        if (!oldName.equals(expectedOldText))
+            throw new RuntimeException("Rename sanity check failed: expected '" + expectedOldText +
+                    "' at [" + start + "," + end + "] (shifted " + shift + " [" + (start + shift) + "," + (end + shift) + "]) " +
+                    "in " + fileName + ", but found '" + oldName + "'\n" +
+                    "Regenerate symbol map on latest sources or start with fresh source and try again");
+        return oldName;
+    }
+
+    private RenamePlan createPlan(String fileName, String data, RangeMap rangeList, ClassMeta meta) {
+        TextEdits edits = new TextEdits();
+
+        Set<String> importsToAdd = new TreeSet<>();
 
         // Existing package/class name (with package, internal) derived from filename
         String oldTopLevelClassFullName = Util.getTopLevelClassForFilename(fileName);
@@ -217,31 +510,27 @@ public class RangeApplier extends ConfLogger<RangeApplier> {
         String newTopLevelClassPackage = idx == -1 ? null                     : newTopLevelClassFullName.substring(0, idx);
         String newTopLevelClassName    = idx == -1 ? newTopLevelClassFullName : newTopLevelClassFullName.substring(idx + 1);
 
+        boolean debug = isLogging(Level.DEBUG);
+
         //String newTopLevelQualifiedName = ((newTopLevelClassPackage == null ? "" : newTopLevelClassPackage + '/') + newTopLevelClassName).replace('\\', '/');
 
         // TODO: Track what code object we're in so we have more context?
         for (RangeEntry info : rangeList.getEntries()) {
             int start = info.getStart();
             int end = start + info.getLength();
-            String expectedOldText = info.getText();
-            String oldName = outData.substring(start + shift, end + shift);
-
-            if (!oldName.equals(expectedOldText))
-                throw new RuntimeException("Rename sanity check failed: expected '" + expectedOldText +
-                        "' at [" + start + "," + end + "] (shifted " + shift + " [" + (start + shift) + "," + (end + shift) + "]) " +
-                        "in " + fileName + ", but found '" + oldName + "'\n" +
-                        "Regenerate symbol map on latest sources or start with fresh source and try again");
+            int shift = edits.getShift();
+            String oldName = checkRange(fileName, data, info, shift);
 
             String newName = null;
             switch (info.getType()) {
                 case PACKAGE: // This should be OUR package reference, other packages are expressed as qualified class entries.
-                    newName = newTopLevelClassPackage.replace('/', '.'); //TODO: Support remapping to no package, thus removing this entirely. Problem is this doesn't reference the "package" text itself.
+                    newName = names.internalToBinary(newTopLevelClassPackage); //TODO: Support remapping to no package, thus removing this entirely. Problem is this doesn't reference the "package" text itself.
                     break;
                 case CLASS: {
                     ClassReference ref = (ClassReference)info;
                     //TODO: I am unsure how we should handle mappings that change the inner class level of a class.
                     // Right now, the outer class is it's own ClassReference entry. So we have no way to figure out if we need to qualify/import it...
-                    String fullname = fixLocalClassName(mapClass(ref.getClassName()));
+                    String fullname = resolver.mapClass(ref.getClassName());
                     idx = fullname.lastIndexOf('/');
                     String packagename = idx == -1 ? null : fullname.substring(0, idx);
                     String simplename = fullname.substring(idx + 1);
@@ -255,7 +544,7 @@ public class RangeApplier extends ConfLogger<RangeApplier> {
                     }
 
                     if (ref.isQualified() && oldName.indexOf('.') > 0) { // Top Level Includes package
-                        newName = fullname.replace('/', '.').replace('$', '.');
+                        newName = names.internalToSource(fullname);
                     } else {
                         newName = simplename;
                         if (!ref.isQualified()) {
@@ -275,20 +564,20 @@ public class RangeApplier extends ConfLogger<RangeApplier> {
                     //    CLASS: `Nullable`
                     //    CLASS: `Foo`
                     ClassPackageReference ref = (ClassPackageReference)info;
-                    String fullname = fixLocalClassName(mapClass(ref.getClassName()));
+                    String fullname = resolver.mapClass(ref.getClassName());
                     idx = fullname.lastIndexOf('/');
                     String packagename = idx == -1 ? null : fullname.substring(0, idx);
-                    newName = packagename.replace('/', '.');
+                    newName = names.internalToBinary(packagename);
                     break;
                 }
                 case FIELD: {
                     FieldReference ref = (FieldReference)info;
-                    newName = mapField(ref.getOwner(), ref.getName());
+                    newName = resolver.mapField(ref.getOwner(), ref.getName());
                     break;
                 }
                 case METHOD: {
                     MethodReference ref = (MethodReference)info;
-                    newName = mapMethod(ref.getOwner(), ref.getName(), ref.getDescriptor());
+                    newName = resolver.mapMethod(ref.getOwner(), ref.getName(), ref.getDescriptor());
                     break;
                 }
                 case PARAMETER: {
@@ -308,12 +597,12 @@ public class RangeApplier extends ConfLogger<RangeApplier> {
                 }
                 case FIELD_LITERAL: {
                     FieldLiteral ref = (FieldLiteral)info;
-                    newName = '"' + mapField(ref.getOwner(), ref.getName()) + '"';
+                    newName = '"' + resolver.mapField(ref.getOwner(), ref.getName()) + '"';
                     break;
                 }
                 case METHOD_LITERAL: {
                     MethodLiteral ref = (MethodLiteral)info;
-                    newName = '"' + mapMethod(ref.getOwner(), ref.getName(), ref.getDescriptor()) + '"';
+                    newName = '"' + resolver.mapMethod(ref.getOwner(), ref.getName(), ref.getDescriptor()) + '"';
                     break;
                 }
                 case LOCAL_VARIABLE: {
@@ -328,58 +617,23 @@ public class RangeApplier extends ConfLogger<RangeApplier> {
             if (oldName.equals(newName))
                 continue; //No rename? Skip the rest.
 
-            log("Rename " + info + " Shift[" + shift + "] " + oldName + " -> " + newName);
+            if (debug)
+                log("Rename " + info + " Shift[" + shift + "] " + oldName + " -> " + newName);
 
-            // Rename algorithm:
-            // 1. textually replace text at specified range with new text
-            // 2. shift future ranges by difference in text length
-            //data = data.substring(0, info.start + shift) + newName + data.substring(end + shift);
-            outData.replace(start + shift, end + shift, newName);
-            shift += (newName.length() - oldName.length());
+            // Ranges are against the original text, so just record the edit and build the output once at the end.
+            edits.replace(start, end, newName);
         }
 
-        // Lastly, update imports - this == separate from symbol range manipulation above
-        String outString = updateImports(outData, importsToAdd);
-
-        // rename?
         fileName = fileName.replace('\\', '/');
         String newFileName = newTopLevelClassFullName + ".java";
 
         if (newFileName.charAt(0) != '/' && fileName.charAt(0) == '/')
             newFileName = '/' + newFileName;
 
-        if (!fileName.equals(newFileName)) {
-            log("Rename file " + fileName + " -> " + newFileName);
-            fileName = newFileName;
-        }
-
-        return Arrays.asList(fileName, outString);
-    }
-
-    private static String fixLocalClassName(String fullname) {
-        int firstIdx = fullname.indexOf('$');
-        if (firstIdx == -1)
-            return fullname;
-
-        StringBuilder builder = new StringBuilder(fullname.length());
-        final String[] parts = fullname.split("\\$");
-        builder.append(parts[0]);
-        for (int part = 1; part < parts.length; part++) {
-            String piece = parts[part];
-            int idx = 0;
-            while (idx < piece.length() && !(Character.isJavaIdentifierStart(piece.codePointAt(idx)))) {
-                idx+=Character.charCount(piece.codePointAt(idx));
-            }
-            if (idx == piece.length()) {
-                builder.append("$").append(piece);
-            } else {
-                builder.append("$").append(piece.substring(idx));
-            }
-        }
-        return builder.toString();
+        return new RenamePlan(newFileName, importsToAdd, edits);
     }
 
-    private static void trackImport(Set<String> imports, String topLevel, String self, String reference) {
+    private void trackImport(Set<String> imports, String topLevel, String self, String reference) {
         if (reference.startsWith(topLevel)) return; //This is a inner class, nested unknown amounts deep.... Just assume it's qualified correctly in code.
 
         int idx = topLevel.lastIndexOf('/');
@@ -391,290 +645,65 @@ public class RangeApplier extends ConfLogger<RangeApplier> {
 
         //This needs to be made better by taking into account inheritance, but I don't know of a simple way to hack inheritance into this,
         //so I think we're gunna have to live with some false positives. We just have to be careful when patching.
-        imports.add(reference.replace('/', '.').replace('$', '.'));
+        imports.add(names.internalToSource(reference));
     }
 
-    /*
-     * Parse the existing imports and find out where to add ours
-     * TODO: Make RangeExtract pull import segments and remap in line? Can we support more layouts?
-     * Imports syntax CAN be very complicated, we only support the most common layout:
-     * import\w+[static]\w+(ClassName);
-     * We can not support comments before the import.. anyone wanna try it?
-     */
-    private String updateImports(StringBuilder data, Set<String> newImports) {
-        int lastIndex = 0;
-        int nextIndex = getNextIndex(data.indexOf("\n"), data.length(), lastIndex);
-
-        boolean addedNewImports = false;
-        boolean sawImports = false;
-        int packageLine = -1;
-        String newline = data.indexOf("\r\n") != -1 ? "\r\n" : "\n";
-
-        while (nextIndex > -1) {
-            String line = data.substring(lastIndex, nextIndex);
-            if (line.endsWith("\r"))
-                line = line.substring(0, line.length() - 1);
-            int comment = line.indexOf("//");
-
-            while ((comment == -1 ? line : line.substring(0, comment)).trim().isEmpty()) {
-                lastIndex += line.length() == 0 ? 1 : line.length();
-                nextIndex = getNextIndex(data.indexOf("\n", lastIndex), data.length(), lastIndex);
-                if (nextIndex == -1) //EOF
-                    break;
-                line = data.substring(lastIndex, nextIndex);
-                if (line.endsWith("\r"))
-                    line = line.substring(0, line.length() - 1);
-                comment = line.indexOf("//");
-            }
-
-            if (nextIndex == -1) //EOF
-                break;
-
-            if (line.startsWith("package "))
-                packageLine = nextIndex + 1;
-            else if (line.startsWith("import")) {
-                sawImports = true;
-
-                Matcher match = IMPORT.matcher(line);
-                if (!match.matches()) {
-                    error("Error: Invalid import line: " + line); //Do we want to error out?
-                    lastIndex = nextIndex + 1;
-                    nextIndex = getNextIndex(data.indexOf("\n", nextIndex + 1), data.length(), nextIndex + 1);
-                    continue;
-                }
-
-                boolean isStatic = match.group("static") != null;
-                String old = match.group("class");
-                int cStart = match.start("class");
-                int cEnd = match.end("class");
-                boolean wildMatch = false;
-
-                if (isStatic) {
-                    int idx = old.lastIndexOf('.');
-                    cEnd -= old.length() - idx;
-                    String name = old.substring(idx + 1);
-                    old = old.substring(0, idx);
-
-                    if ("*".equals(name)) {
-                        ; //Wildcard, but we just want to rename the class
-                    } else {
-                        error("Warning: Static Method/Field Imports not supported: " + line); //Do we want to error out?
-                        lastIndex = nextIndex;
-                        nextIndex = getNextIndex(data.indexOf("\n", nextIndex + 1), data.length(), nextIndex + 1);
-                    }
-                } else if (old.endsWith(".*")) {
-                    Set<String> remove = new HashSet<>();
-                    String starter = old.substring(0, old.length() - 1);
-                    for (String imp : newImports) {
-                        String impStart = imp.substring(0, imp.lastIndexOf('.') + 1);
-                        if (impStart.equals(starter)) {
-                            remove.add(imp);
-                            wildMatch = true;
-                        }
-                    }
-                    newImports.removeAll(remove);
-
-                    old = old.substring(0, old.length() - 2);
-                    cEnd -= 2;
-                }
-
-                String newClass = mapClass(clsSrc2Internal.getOrDefault(old, old)).replace('/', '.').replace('$', '.');
-
-                //log("Import: " + newClass);
-
-                if (!wildMatch && !newImports.remove(newClass) && !isStatic) { // New file doesn't need the import, so delete the line.
-                    if (this.keepImports)
-                        lastIndex = nextIndex + 1;
-                    else {
-                        data.delete(lastIndex, nextIndex + 1);
-                        if (data.substring(lastIndex > 3 ? lastIndex - 3 : 0, lastIndex).endsWith('\n' + newline) &&
-                            data.substring(lastIndex, lastIndex + newline.length()).equals(newline)) { // Collapse double empty lines
-                            data.delete(lastIndex - newline.length(), lastIndex);
-                            lastIndex -= newline.length();
-                        }
-                    }
-                    nextIndex = getNextIndex(data.indexOf("\n", lastIndex), data.length(), lastIndex);
-                    continue;
-                }
-
-                if (!old.equals(newClass)) { // Got renamed
-                    data.replace(lastIndex + cStart, lastIndex + cEnd, newClass);
-                    nextIndex = nextIndex - (old.length() - newClass.length());
-                }
-            } else if (sawImports && !addedNewImports) {
-                filterImports(newImports);
-
-                if (newImports.size() > 0) {
-                    // Add our new imports right after the last import
-                    CharSequence sub = data.subSequence(lastIndex, data.length()); // grab the rest of the string.
-                    data.setLength(lastIndex); // cut off the build there
-
-                    newImports.stream().sorted().forEach(imp -> data.append("import ").append(imp).append(";\n"));
-
-                    if (newImports.size() > 0)
-                        data.append(newline);
-
-                    int change = data.length() - lastIndex; // get changed size
-                    lastIndex = data.length(); // reset the end to the actual end..
-                    nextIndex += change; // shift nextIndex accordingly..
-
-                    data.append(sub); // add on the rest if the string again
-                }
-
-                addedNewImports = true;
-                break; //We've added out imports lets exit.
-            }
-
-            // next line.
-            lastIndex = nextIndex + 1; // +1 to skip the \n at the end of the line there
-            nextIndex = getNextIndex(data.indexOf("\n", lastIndex), data.length(), lastIndex); // another +1 because otherwise it would just return lastIndex
-        }
-
-        // got through the whole file without seeing or adding any imports???
-        if (!addedNewImports) {
-            filterImports(newImports);
-
-            if (newImports.size() > 0) {
-                //If we saw the package line, add to it after that.
-                //If not prepend to the start of the file
-                int index = packageLine == -1 ? 0 : packageLine;
-
-                CharSequence sub = data.subSequence(index, data.length()); // grab the rest of the string.
-                data.setLength(index); // cut off the build there
-
-                newImports.stream().sorted().forEach(imp -> data.append(newline).append("import ").append(imp).append(";"));
-
-                if (newImports.size() > 0)
-                    data.append('\n');
-
-                data.append(sub); // add on the rest if the string again
-            }
-        }
-
-        if (sortImports && (!newImports.isEmpty() || sawImports)) {
-            int startIndex = data.indexOf("import ");
-            int endIndex = data.indexOf("\n", startIndex);
-            nextIndex = endIndex;
-            if (startIndex != -1) {
-                String line;
-
-                while (endIndex != -1) {
-                    nextIndex = data.indexOf("\n", endIndex + 1);
-                    line = data.substring(endIndex + 1, nextIndex == -1 ? data.length() : nextIndex);
-                    if (line.startsWith("import ") || line.replaceAll("\r?\n", "").trim().isEmpty())
-                        endIndex = nextIndex;
-                    else
-                        break;
-                }
-                if (endIndex == -1)
-                    endIndex = data.length();
-
-                while (data.charAt(endIndex-1) == '\n' || data.charAt(endIndex-1) == '\r')
-                    endIndex--;
-
-                String importData = data.substring(startIndex, endIndex);
-                String imports = Stream.of(importData.split("\r?\n"))
-                    .filter(i -> !i.trim().isEmpty())
-                    .map(i -> {
-                        i = i.substring(7, i.length() - 1);
-                        int idx = i.lastIndexOf('.');
-                        return new String[] { i.substring(0, idx), i.substring(idx + 1) };
-                    })
-                    .sorted((o1, o2) -> o1[0].equals(o2[0]) ? o1[1].compareTo(o2[1]) : o1[0].compareTo(o2[0]))
-                    .map(i -> "import " + i[0] + '.' + i[1] + ';')
-                    .collect(Collectors.joining(newline));
-                data.replace(startIndex, endIndex, imports);
-            }
-        }
-
-        return data.toString();
+    // TODO: Decide how I want to manage multiple srg files? Chain them? Merge them?
+    //Current usecase is Forge adding extra SRG lines. But honestly that shouldn't happen anymore.
+    private MappingIndex getIndex() {
+        if (index == null)
+            index = MappingIndex.create(srgs, excs);
+        return index;
     }
 
-    private int getNextIndex(int newLine, int dataLength, int oldIndex) {
-        if (newLine == -1 && dataLength > oldIndex)
-            return dataLength;
-        return newLine;
+    String mapClass(String name) {
+        return getIndex().mapClass(name);
     }
 
-    private void filterImports(Set<String> newImports) {
-        Iterator<String> itr  = newImports.iterator();
-        while (itr.hasNext()) {
-            if (itr.next().startsWith("java.lang.")) //java.lang classes can be referenced without imports
-                itr.remove();                        //We remove them here to allow for them to exist in src
-                                                     //But we will never ADD them
-        }
-
-        if (newImports.size() > 0) {
-            log("Adding " + newImports.size() + " imports");
-            for (String imp : newImports) {
-                log("        " + imp);
-                //log("        " + HashCode.fromBytes(imp.getBytes()).toString());
-            }
-        }
+    String mapField(String owner, String name) {
+        return getIndex().mapField(owner, name);
     }
 
-    // TODO: Decide how I want to manage multiple srg files? Chain them? Merge them?
-    //Current usecase is Forge adding extra SRG lines. But honestly that shouldn't happen anymore.
-    String mapClass(String name) {
-        for (IMappingFile srg : srgs) {
-            IMappingFile.IClass cls = srg.getClass(name);
-            if (cls != null)
-                return cls.getMapped();
-        }
-        return name;
+    /*
+     * Maps a class as written in an import, returning the new source name.
+     */
+    String mapImport(String name) {
+        return names.internalToSource(mapClass(clsSrc2Internal.getOrDefault(name, name)));
     }
 
-    String mapField(String owner, String name) {
-        for (IMappingFile srg : srgs) {
-            IMappingFile.IClass cls = srg.getClass(owner);
-            if (cls != null) {
-                String newName = cls.remapField(name);
-                if (newName != name) // This is intentional instance equality. As remap methods return the same instance of not found.
-                    return newName;
-            }
-        }
-        return name;
+    /*
+     * The member of a static import, we don't know if it is a field or a method, so try both.
+     * Methods are imported by name, so it has to be mapped the same for every descriptor.
+     */
+    String mapImportMember(String owner, String name) {
+        String internal = clsSrc2Internal.get(owner);
+        if (internal == null)
+            return name;
+        String ret = getIndex().mapField(internal, name);
+        if (!ret.equals(name))
+            return ret;
+        ret = getIndex().mapMethodName(internal, name);
+        return ret == null ? name : ret;
     }
 
     String mapMethod(String owner, String name, String desc) {
         if ("<init>".equals(name)) {
-            String newName = fixLocalClassName(mapClass(owner));
+            String newName = ClassNames.fixLocalClassName(mapClass(owner));
             int idx = newName.lastIndexOf('$');
             idx = idx != -1 ? idx : newName.lastIndexOf('/');
             return idx == -1 ? newName : newName.substring(idx + 1);
         }
 
-        for (IMappingFile srg : srgs) {
-            IMappingFile.IClass cls = srg.getClass(owner);
-            if (cls != null) {
-                String newName = cls.remapMethod(name, desc);
-                if (newName != name) // This is intentional instance equality. As remap methods return the same instance of not found.
-                    return newName;
-            }
-        }
+        String newName = getIndex().mapMethod(owner, name, desc);
+        if (newName != null)
+            return newName;
 
         //There was no mapping for this specific method, so lets see if this is something in the metadata
         return meta == null ? name : meta.mapMethod(owner, name, desc);
     }
 
     private String mapParam(String owner, String name, String desc, int index, String old) {
-        ExceptorClass exc = this.excs.get(owner);
-        String ret = exc == null ? null : exc.mapParam(name, desc, index, old);
-        if (ret == null) {
-            for (IMappingFile srg : srgs) {
-                IMappingFile.IClass cls = srg.getClass(owner);
-                if (cls != null) {
-                    IMappingFile.IMethod mtd = cls.getMethod(name, desc);
-                    if (mtd != null) {
-                        String mapped = mtd.remapParameter(index, old);
-                        if (mapped != old) {
-                            ret = mapped;
-                            break;
-                        }
-                    }
-                }
-            }
-        }
+        String ret = getIndex().mapParam(owner, name, desc, index);
         if (ret == null && this.guessLambdas != null && name.startsWith("lambda$"))
             ret = this.guessLambdas.get(old);
 
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.apply;
+
+import java.util.Set;
+
+/*
+ * Everything the mappings decide for a single file: the renames, the imports it needs, and the file's new name.
+ * Applying a plan only needs the original text, so a cached plan skips every mapping lookup.
+ */
+class RenamePlan {
+    private final String fileName;
+    private final Set<String> imports;
+    private final TextEdits edits;
+
+    RenamePlan(String fileName, Set<String> imports, TextEdits edits) {
+        this.fileName = fileName;
+        this.imports = imports;
+        this.edits = edits;
+    }
+
+    String getFileName() {
+        return this.fileName;
+    }
+
+    Set<String> getImports() {
+        return this.imports;
+    }
+
+    TextEdits getEdits() {
+        return this.edits;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.apply;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.minecraftforge.srg2source.util.ContentHash;
+
+/*
+ * Persistent cache of rename plans, one file per entry: {root}/{key[0:2]}/{key}.plan
+ * The key is the file name and the hash from its range map, plus a fingerprint of everything the mappings were built from.
+ * So any change to the source, the srg/exc files, or the options that affect renames, is a different key and the old entry is just never used.
+ */
+class RenamePlanCache {
+    private static final int VERSION = 1;
+
+    private final Path root;
+    private String context = null;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    RenamePlanCache(Path root) {
+        this.root = root;
+    }
+
+    void setContext(String fingerprint) {
+        this.context = ContentHash.MD5.hash((VERSION + "\0" + fingerprint).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Path getEntry(String fileName, String hash) {
+        if (this.context == null)
+            throw new IllegalStateException("Rename plan cache context has not been set");
+        String key = ContentHash.MD5.hash((this.context + '\0' + fileName + '\0' + hash).getBytes(StandardCharsets.UTF_8));
+        return this.root.resolve(key.substring(0, 2)).resolve(key + ".plan");
+    }
+
+    RenamePlan get(String fileName, String hash) {
+        if (hash == null)
+            return null;
+
+        Path entry = getEntry(fileName, hash);
+        if (!Files.exists(entry)) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(entry)))) {
+            if (in.readInt() != VERSION)
+                throw new IOException("Unknown plan version");
+
+            String newName = in.readUTF();
+            Set<String> imports = new TreeSet<>();
+            for (int x = in.readInt(); x > 0; x--)
+                imports.add(in.readUTF());
+
+            TextEdits edits = new TextEdits();
+            for (int x = in.readInt(); x > 0; x--) {
+                int start = in.readInt();
+                int end = in.readInt();
+                edits.replace(start, end, in.readUTF());
+            }
+
+            hits.incrementAndGet();
+            return new RenamePlan(newName, imports, edits);
+        } catch (IOException | RuntimeException e) {
+            // Corrupt or half written, treat it like it was never there.
+            try {
+                Files.deleteIfExists(entry);
+            } catch (IOException e2) {}
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    void put(String fileName, String hash, RenamePlan plan) throws IOException {
+        if (hash == null)
+            return;
+
+        Path entry = getEntry(fileName, hash);
+        Path parent = entry.getParent();
+        Files.createDirectories(parent);
+
+        Path temp = Files.createTempFile(parent, entry.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(VERSION);
+                out.writeUTF(plan.getFileName());
+                out.writeInt(plan.getImports().size());
+                for (String imp : plan.getImports())
+                    out.writeUTF(imp);
+
+                TextEdits edits = plan.getEdits();
+                out.writeInt(edits.size());
+                for (int x = 0; x < edits.size(); x++) {
+                    out.writeInt(edits.getStart(x));
+                    out.writeInt(edits.getEnd(x));
+                    out.writeUTF(edits.getValue(x));
+                }
+            }
+            try {
+                Files.move(temp, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    int getHits() {
+        return this.hits.get();
+    }
+
+    int getMisses() {
+        return this.misses.get();
+    }
+}
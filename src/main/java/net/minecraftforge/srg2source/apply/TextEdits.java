@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.apply;
+
+import java.util.Arrays;
+
+/*
+ * Collects replacements against the original text, and builds the result in a single forward copy.
+ * Replacing in place shifts the whole tail of the buffer for every rename, which is quadratic on files with thousands of references.
+ * Edits must be added in order and must not overlap, which is how range maps are written.
+ * They do not hold the text itself, so they can be cached and applied to the same file later.
+ */
+class TextEdits {
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private String[] values = new String[16];
+    private int count = 0;
+    private int shift = 0;
+
+    void replace(int start, int end, String value) {
+        int last = count == 0 ? 0 : ends[count - 1];
+        if (start < last || end < start)
+            throw new IllegalArgumentException("Invalid edit [" + start + "," + end + "] after " + last);
+
+        if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+            ends = Arrays.copyOf(ends, count * 2);
+            values = Arrays.copyOf(values, count * 2);
+        }
+        starts[count] = start;
+        ends[count] = end;
+        values[count] = value;
+        count++;
+        shift += value.length() - (end - start);
+    }
+
+    /*
+     * The difference in length between the original and the edited text, so far.
+     */
+    int getShift() {
+        return shift;
+    }
+
+    boolean isEmpty() {
+        return count == 0;
+    }
+
+    int size() {
+        return count;
+    }
+
+    int getStart(int index) {
+        return starts[index];
+    }
+
+    int getEnd(int index) {
+        return ends[index];
+    }
+
+    String getValue(int index) {
+        return values[index];
+    }
+
+    /*
+     * Where a range of the original text ends up once the edits are applied, or -1 if an edit touches it.
+     */
+    int map(int start, int end) {
+        int ret = start;
+        for (int x = 0; x < count && starts[x] < end; x++) {
+            if (ends[x] > start)
+                return -1;
+            ret += values[x].length() - (ends[x] - starts[x]);
+        }
+        return ret;
+    }
+
+    StringBuilder apply(String data) {
+        if (count > 0 && ends[count - 1] > data.length())
+            throw new IllegalArgumentException("Invalid edit [" + starts[count - 1] + "," + ends[count - 1] + "] in text of length " + data.length());
+
+        StringBuilder ret = new StringBuilder(data.length() + Math.max(0, shift));
+        int last = 0;
+        for (int x = 0; x < count; x++) {
+            ret.append(data, last, starts[x]).append(values[x]);
+            last = ends[x];
+        }
+        ret.append(data, last, data.length());
+        return ret;
+    }
+}
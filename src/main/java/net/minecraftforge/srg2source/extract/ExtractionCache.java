@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.extract;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import net.minecraftforge.srg2source.range.RangeMap;
+import net.minecraftforge.srg2source.util.ContentHash;
+import net.minecraftforge.srg2source.util.Util;
+
+/*
+ * Persistent, content addressed cache of extracted range maps, one file per entry: {root}/{key[0:2]}/{key}.range
+ * The key covers the file's path and hash, and everything else that changes what we extract: the libraries, source level, and mixin/preview flags.
+ * It does not cover the rest of the source tree, same as the single file cache, a change to one file does not invalidate the files that reference it.
+ * Entries are written to a temp file and moved into place, so multiple processes can share a directory.
+ * Every hit touches the entry, and evict removes the least recently used entries until the directory is under the size limit.
+ */
+public class ExtractionCache {
+    private static final int VERSION = 2; // Bump this when the extractor output changes, so old entries are never used.
+    private static final long TEMP_AGE = TimeUnit.HOURS.toMillis(1); // Temp files older than this are from puts that never finished.
+
+    private final Path root;
+    private final long maxSize;
+    private String context = null;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+    private final AtomicInteger stored = new AtomicInteger();
+
+    /*
+     * maxSize is in bytes, zero or less disables eviction.
+     */
+    public ExtractionCache(Path root, long maxSize) {
+        this.root = root;
+        this.maxSize = maxSize;
+    }
+
+    public Path getRoot() {
+        return this.root;
+    }
+
+    void setContext(Iterable<File> libraries, String sourceVersion, boolean mixins, boolean preview) {
+        StringBuilder buf = new StringBuilder();
+        buf.append("version=").append(VERSION).append('\n');
+        buf.append("java=").append(System.getProperty("java.version")).append('\n');
+        buf.append("source=").append(sourceVersion).append('\n');
+        buf.append("mixins=").append(mixins).append('\n');
+        buf.append("preview=").append(preview).append('\n');
+        for (File lib : libraries)
+            buf.append("lib=").append(fingerprint(lib)).append('\n');
+        this.context = Util.md5(buf.toString(), StandardCharsets.UTF_8);
+    }
+
+    // Files are identified by name and content so the cache can be shared between machines that have them in different places.
+    // Directories are the same, every file in them by relative path and content, so changing a class file is a different key.
+    private static String fingerprint(File lib) {
+        if (lib.isDirectory()) {
+            Path root = lib.toPath();
+            try (Stream<Path> stream = Files.walk(root)) {
+                StringBuilder buf = new StringBuilder();
+                for (Path file : stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList())) {
+                    try (InputStream in = Files.newInputStream(file)) {
+                        buf.append(root.relativize(file).toString().replace('\\', '/')).append(' ').append(ContentHash.MD5.hash(in)).append('\n');
+                    }
+                }
+                return lib.getName() + "/ " + Util.md5(buf.toString(), StandardCharsets.UTF_8);
+            } catch (IOException | UncheckedIOException e) {
+                return lib.getAbsolutePath() + " unreadable";
+            }
+        }
+
+        try (InputStream in = Files.newInputStream(lib.toPath())) {
+            return lib.getName() + ' ' + ContentHash.MD5.hash(in);
+        } catch (IOException e) {
+            return lib.getAbsolutePath() + " missing";
+        }
+    }
+
+    private Path getEntry(String path, String hash) {
+        if (this.context == null)
+            throw new IllegalStateException("Extraction cache context has not been set");
+        String key = Util.md5(this.context + '\0' + path + '\0' + hash, StandardCharsets.UTF_8);
+        return this.root.resolve(key.substring(0, 2)).resolve(key + ".range");
+    }
+
+    RangeMap get(String path, String hash) {
+        if (hash == null)
+            return null;
+
+        Path entry = getEntry(path, hash);
+        if (!Files.exists(entry)) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        try {
+            RangeMap ret;
+            try (InputStream in = Files.newInputStream(entry)) {
+                ret = RangeMap.readAll(in).get(path);
+            }
+            if (ret == null || !hash.equals(ret.getHash()))
+                throw new IllegalStateException("Mismatched cache entry");
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            hits.incrementAndGet();
+            return ret;
+        } catch (IOException | RuntimeException e) {
+            // Corrupt or half written by something that crashed, treat it like it was never there.
+            try {
+                Files.deleteIfExists(entry);
+            } catch (IOException e2) {}
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    void put(String path, String hash, RangeMap range) throws IOException {
+        if (hash == null)
+            return;
+
+        Path entry = getEntry(path, hash);
+        Path parent = entry.getParent();
+        Files.createDirectories(parent);
+
+        Path temp = Files.createTempFile(parent, entry.getFileName().toString(), ".tmp");
+        try {
+            try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(temp, StandardCharsets.UTF_8))) {
+                range.write(out, true);
+            }
+            try {
+                Files.move(temp, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING);
+            }
+            stored.incrementAndGet();
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /*
+     * Deletes the least recently used entries until the cache is under it's size limit, and temp files left by puts that never finished.
+     * Other processes may be using the directory at the same time, so anything that disappears while we look is just skipped.
+     * Returns the number of entries deleted.
+     */
+    public int evict() throws IOException {
+        if (!Files.exists(this.root))
+            return 0;
+
+        List<Map.Entry<Path, long[]>> entries = new ArrayList<>();
+        List<Path> temps = new ArrayList<>();
+        long staleTemp = System.currentTimeMillis() - TEMP_AGE;
+        Files.walkFileTree(this.root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".range"))
+                    entries.add(Map.entry(file, new long[] { attrs.size(), attrs.lastModifiedTime().toMillis() }));
+                else if (name.endsWith(".tmp") && attrs.lastModifiedTime().toMillis() < staleTemp)
+                    temps.add(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
+                if (exc instanceof NoSuchFileException)
+                    return FileVisitResult.CONTINUE;
+                throw exc;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                if (exc == null || exc instanceof NoSuchFileException)
+                    return FileVisitResult.CONTINUE;
+                throw exc;
+            }
+        });
+
+        // Anything still being written was touched recently, these are from puts that crashed.
+        for (Path temp : temps)
+            Files.deleteIfExists(temp);
+
+        long total = 0;
+        for (Map.Entry<Path, long[]> e : entries)
+            total += e.getValue()[0];
+
+        if (this.maxSize <= 0 || total <= this.maxSize)
+            return 0;
+
+        entries.sort(Comparator.comparingLong(e -> e.getValue()[1]));
+        int deleted = 0;
+        for (Map.Entry<Path, long[]> e : entries) {
+            if (total <= this.maxSize)
+                break;
+            if (Files.deleteIfExists(e.getKey()))
+                deleted++;
+            total -= e.getValue()[0];
+        }
+        return deleted;
+    }
+
+    public int getHits() {
+        return this.hits.get();
+    }
+
+    public int getMisses() {
+        return this.misses.get();
+    }
+
+    public int getStored() {
+        return this.stored.get();
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.extract;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import net.minecraftforge.srg2source.range.RangeMap;
+
+/*
+ * Reorder buffer that writes range maps in sorted path order as soon as they can be, instead of holding every builder until the end.
+ * A finished file is held only until every lexically earlier path is done, so memory is bounded by the work in flight, not the whole tree.
+ * JDT hands files back from multiple threads when running in parallel, so everything here is synchronized, which also serializes the writes.
+ */
+class OrderedRangeWriter {
+    private final String[] order;
+    private final Consumer<RangeMap> writer;
+    private final Map<String, RangeMap> pending = new HashMap<>();
+    private int next = 0;
+    private int peak = 0;
+
+    OrderedRangeWriter(String[] order, Consumer<RangeMap> writer) {
+        this.order = order;
+        this.writer = writer;
+    }
+
+    /*
+     * Marks a path as done, range may be null if the file failed or there is no output, it still needs to unblock the paths after it.
+     */
+    synchronized void complete(String path, RangeMap range) {
+        pending.put(path, range);
+        peak = Math.max(peak, pending.size());
+
+        while (next < order.length && pending.containsKey(order[next])) {
+            RangeMap value = pending.remove(order[next++]);
+            if (value != null)
+                writer.accept(value);
+        }
+    }
+
+    /*
+     * Writes anything still held, in sorted order. Either paths JDT never handed back, which hold up everything after them, or paths that were not in the original list.
+     * Returns false if any path was never handed back, those files have no range map.
+     */
+    synchronized boolean finish() {
+        boolean ret = next == order.length;
+        for (RangeMap value : new TreeMap<>(pending).values()) {
+            if (value != null)
+                writer.accept(value);
+        }
+        pending.clear();
+        next = order.length;
+        return ret;
+    }
+
+    synchronized int getPeak() {
+        return peak;
+    }
+}
@@ -12,26 +12,42 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.PrintWriter;
+import java.io.UncheckedIOException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 import net.minecraftforge.srg2source.api.InputSupplier;
 import net.minecraftforge.srg2source.api.SourceVersion;
+import net.minecraftforge.srg2source.range.IRangeMapWriter;
 import net.minecraftforge.srg2source.range.RangeMap;
 import net.minecraftforge.srg2source.range.RangeMapBuilder;
+import net.minecraftforge.srg2source.range.RangeMapFormat;
+import net.minecraftforge.srg2source.range.SymbolPool;
+import net.minecraftforge.srg2source.range.TextRangeMapWriter;
+import net.minecraftforge.srg2source.util.ContentHash;
+import net.minecraftforge.srg2source.util.Metrics;
 import net.minecraftforge.srg2source.util.Util;
 import net.minecraftforge.srg2source.util.io.ConfLogger;
+import net.minecraftforge.srg2source.util.io.ConfLogger.Level;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
@@ -42,27 +58,42 @@ import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.dom.FileASTRequestor;
 
 public class RangeExtractor extends ConfLogger<RangeExtractor> {
-    private static RangeExtractor INSTANCE = null;
+    // The extractor whose input the JDT hook should read from, bound to the thread that is running createASTs.
+    // This allows multiple extractors to batch at the same time in the same JVM.
+    private static final ThreadLocal<RangeExtractor> ACTIVE = new ThreadLocal<>();
 
-    private PrintWriter output;
+    private IRangeMapWriter output;
     private String sourceVersion;
     private boolean enableBatchedASTs = true;
+    private int threads = 1;
     private final Set<File> libs = new LinkedHashSet<File>();
     private String[] libArray = null; //A cache of libs, so we don't have to re-build it over and over.
 
     private InputSupplier input;
 
     private Map<String, RangeMap> file_cache = new HashMap<>();
-    private int cache_hits = 0;
+    private ExtractionCache cache = null;
+    private ContentHash contentHash = ContentHash.MD5;
+    private final AtomicInteger cache_hits = new AtomicInteger();
     private boolean enableMixins = false;
     private boolean fatalMixins = false;
     private boolean logWarnings = false;
     private boolean enablePreview = false;
     private boolean failOnError = false;
+    private Metrics metrics = new Metrics();
+    // JDT calls back into us while parsing, time spent in those callbacks is taken out of the parse phase.
+    private final LongAdder jdtNanos = new LongAdder();
+    private final LongAdder callbackNanos = new LongAdder();
+    // Set from the worker threads when a file could not be read, so its range map was never written.
+    private volatile boolean failed = false;
 
     public RangeExtractor(){}
 
     public void setOutput(PrintWriter value) {
+        this.output = value == null ? null : new TextRangeMapWriter(value);
+    }
+
+    public void setOutput(IRangeMapWriter value) {
         this.output = value;
     }
 
@@ -74,6 +105,10 @@ public class RangeExtractor extends ConfLogger<RangeExtractor> {
         this.enableBatchedASTs = value;
     }
 
+    public void setThreads(int value) {
+        this.threads = Math.max(1, value);
+    }
+
     public void enableMixins() {
         this.enableMixins = true;
     }
@@ -116,9 +151,30 @@ public class RangeExtractor extends ConfLogger<RangeExtractor> {
         this.file_cache = RangeMap.readAll(stream);
     }
 
+    public void loadCache(Path path) throws IOException {
+        this.file_cache = RangeMapFormat.read(path);
+    }
+
+    public void setCache(ExtractionCache value) {
+        this.cache = value;
+    }
+
+    public void setContentHash(ContentHash value) {
+        this.contentHash = value;
+    }
+
+    public void setMetrics(Metrics value) {
+        this.metrics = value;
+    }
+
+    public Metrics getMetrics() {
+        return this.metrics;
+    }
+
     @Override //Log everything as a comment in case we merge the output and log as we used to do.
     public void log(String message) {
-        super.log("# " + message);
+        if (isLogging(Level.INFO))
+            super.log("# " + message);
     }
 
     /**
@@ -127,47 +183,79 @@ public class RangeExtractor extends ConfLogger<RangeExtractor> {
     public boolean run() {
         log("Symbol range map extraction starting");
 
+        long start = metrics.start();
         String[] files = input.gatherAll(".java").stream()
                 .map(f -> f.replaceAll("\\\\", "/")) // Normalize directory separators.
                 .sorted()
                 .toArray(String[]::new);
+        metrics.stop("gather", start);
+        metrics.add("files", files.length);
         log("Processing " + files.length + " files");
 
-        if (files.length == 0) {
-            // no files? well.. nothing to do then.
-            cleanup();
-            return true;
+        if (cache != null)
+            cache.setContext(libs, sourceVersion, enableMixins, enablePreview);
+
+        failed = false;
+        boolean finished = false;
+        try {
+            if (files.length == 0) {
+                // no files? well.. nothing to do then.
+            } else if (canBatchASTs())
+                batchGenerate(files);
+            else
+                legacyGenerate(files);
+            // Finding nothing at all is more likely a bad input than every source being removed, so it doesn't count either.
+            finished = files.length != 0 && !failed;
+        } finally {
+            cleanup(finished);
         }
 
-        if (canBatchASTs())
-            return batchGenerate(files);
-        else
-            return legacyGenerate(files);
+        metrics.stop("total", start);
+        if (isLogging(Level.INFO)) {
+            log("Timings: " + metrics.getSummary());
+            List<String> slowest = metrics.getSlowestSummary();
+            if (!slowest.isEmpty()) {
+                log("Slowest files:");
+                slowest.forEach(line -> log("  " + line));
+            }
+        }
+        return true;
     }
 
-    private boolean legacyGenerate(String[] files) {
+    private void legacyGenerate(String[] files) {
         try {
             for (String path : files) {
                 Charset encoding = input.getEncoding(path);
                 if (encoding == null)
                     encoding = StandardCharsets.UTF_8;
 
+                long started = metrics.start();
+                long allocated = metrics.allocated();
                 try (InputStream stream = input.getInput(path)) {
-                    String data = new String(Util.readStream(stream), encoding);
-                    String md5 = Util.md5(data, encoding);
+                    long start = metrics.start();
+                    byte[] raw = Util.readStream(stream);
+                    String data = new String(raw, encoding);
+                    start = metrics.stop("read", start);
+                    String md5 = contentHash.hash(raw);
+                    start = metrics.stop("hash", start);
                     RangeMapBuilder builder = new RangeMapBuilder(this, path, md5);
 
-                    log("startProcessing \"" + path + "\" md5: " + md5);
+                    if (isLogging(Level.DEBUG))
+                        log("startProcessing \"" + path + "\" md5: " + md5);
 
-                    RangeMap cache = this.file_cache.get(path);
-                    if (builder.loadCache(cache)) {
-                        log("Cache Hit!");
-                        RangeExtractor.this.cache_hits++;
+                    boolean cached = loadCached(builder, path, md5);
+                    boolean errored = false;
+                    if (cached) {
+                        log(Level.DEBUG, "Cache Hit!");
+                        RangeExtractor.this.cache_hits.incrementAndGet();
+                        metrics.increment("cache.hits");
                     } else {
+                        start = metrics.start();
                         ASTParser parser = createParser(input.getRoot(path));
                         parser.setUnitName(path);
                         parser.setSource(data.toCharArray());
                         CompilationUnit cu = (CompilationUnit)parser.createAST(null);
+                        metrics.stop("parse", start);
                         if (cu.getProblems() != null && cu.getProblems().length > 0) {
                             var errors = new ArrayList<String>();
                             for (var p : cu.getProblems()) {
@@ -178,93 +266,327 @@ public class RangeExtractor extends ConfLogger<RangeExtractor> {
                             }
                             if (this.failOnError && !errors.isEmpty())
                                 rethrow(new RuntimeException("Compile errors found in " + path + ": " + String.join(", ", errors)));
+                            errored = !errors.isEmpty();
                         }
 
+                        start = metrics.start();
                         SymbolReferenceWalker walker = new SymbolReferenceWalker(this, builder, enableMixins);
-                        rethrow(walker.safeWalk(cu));
+                        Throwable error = walker.safeWalk(cu);
+                        metrics.stop("walk", start);
+                        rethrow(error);
+                        errored |= error != null;
                     }
 
-                    RangeMap range = builder.build();
-                    if (output != null)
-                        range.write(output, true);
-                    log("endProcessing \"" + path + "\"");
-                    log("");
+                    RangeMap range = build(builder);
+                    if (errored)
+                        metrics.increment("errors");
+                    if (!cached && !errored)
+                        storeCached(path, md5, range);
+                    writeRange(range);
+                    if (isLogging(Level.DEBUG)) {
+                        log("endProcessing \"" + path + "\"");
+                        log("");
+                    }
                 }
+                metrics.file(path, started, allocated);
             }
         } catch (Exception e) {
+            failed = true;
+            metrics.increment("errors");
             e.printStackTrace(getErrorLogger());
         }
-
-        cleanup();
-        return true;
     }
 
-    private boolean batchGenerate(String[] files) {
-        if (RangeExtractor.INSTANCE != null)
-            throw new IllegalStateException("Can not do batched processing while another is running!");
-        RangeExtractor.INSTANCE = this;
-
+    private void batchGenerate(String[] files) {
         //TODO: Check org.eclipse.jdt.internal.compiler.batch.FileSystem.getClasspath(String, String, boolean, AccessRuleSet, String, Map<String, String>, String)
         // That is where it loads sourceDirs as classpath entries. Try and hijack to include InputSuppliers?
-        ASTParser parser = createParser(null);
-        Map<String, RangeMapBuilder> builders = new ConcurrentHashMap<>();
+        OrderedRangeWriter writer = new OrderedRangeWriter(files, this::writeRange);
+        Map<String, String> hashes = new HashMap<>();
+        Set<String> hits = new HashSet<>();
+        String[] misses = processCached(files, hashes, hits, writer);
+        log("Cache hits: " + hits.size() + " Parsing: " + misses.length);
+
+        // Each parser gets its own pool, so the symbols are only held while that batch or shard is being walked.
+        Supplier<FileASTRequestor> requestors = () -> createRequestor(writer, hashes, hits, new SymbolPool());
+
+        boolean parallel = threads > 1 && misses.length > 1;
+        String[] roots = parallel || !hits.isEmpty() ? getSourceRoots(files) : null;
+        String[] batch = misses;
+        if (roots == null && !hits.isEmpty() && misses.length != 0) {
+            // JDT can't find the cached files through a source path, so they have to be in the batch for the misses to bind against.
+            // They are only parsed, what was loaded from the cache is still what gets written.
+            log("Sources are not all on disk, parsing cached files again for their bindings");
+            batch = files;
+        } else if (parallel && roots == null)
+            log("Sources are not all on disk, parsing in one batch so references between shards resolve");
+
+        if (misses.length == 0) {
+            // Everything came from the cache, no need to spin up JDT at all.
+        } else if (parallel && roots != null)
+            parallelGenerate(misses, requestors, roots);
+        else
+            // If some files came from the cache, JDT finds them through the source roots for bindings to resolve the same.
+            createASTs(createParser(roots), batch, requestors.get());
+
+        if (misses.length != 0)
+            metrics.time("parse", jdtNanos.sumThenReset() - callbackNanos.sumThenReset());
+
+        if (!writer.finish()) {
+            failed = true;
+            log("Some files were never returned by JDT, their range maps were not written");
+        }
+        log("Peak buffered range maps: " + writer.getPeak());
+    }
+
+    /*
+     * Hashes every file up front, and completes the ones that are in the cache without ever handing them to JDT.
+     * Returns the files that still need to be parsed, the hashes are kept so acceptAST doesn't need to read the files again.
+     * The paths that were completed are added to hits.
+     */
+    private String[] processCached(String[] files, Map<String, String> hashes, Set<String> hits, OrderedRangeWriter writer) {
+        if (this.file_cache.isEmpty() && this.cache == null)
+            return files;
+
+        List<String> misses = new ArrayList<>();
+        SymbolPool symbols = new SymbolPool();
+        for (String path : files) {
+            String md5;
+            long start = metrics.start();
+            try (InputStream stream = input.getInput(path)) {
+                md5 = contentHash.hash(stream);
+            } catch (IOException e) {
+                failed = true;
+                metrics.increment("errors");
+                e.printStackTrace(getErrorLogger());
+                writer.complete(path, null);
+                continue;
+            }
+            metrics.stop("hash", start);
+            hashes.put(path, md5);
+
+            RangeMapBuilder builder = new RangeMapBuilder(this, path, md5, symbols);
+            if (loadCached(builder, path, md5)) {
+                if (isLogging(Level.DEBUG)) {
+                    log("startProcessing \"" + path + "\" md5: " + md5);
+                    log("Cache Hit!");
+                    log("endProcessing \"" + path + "\"");
+                    log("");
+                }
+                this.cache_hits.incrementAndGet();
+                metrics.increment("cache.hits");
+                hits.add(path);
+                writer.complete(path, output == null ? null : build(builder));
+            } else {
+                misses.add(path);
+            }
+        }
+        return misses.toArray(new String[misses.size()]);
+    }
+
+    private void createASTs(ASTParser parser, String[] files, FileASTRequestor requestor) {
+        RangeExtractor previous = ACTIVE.get();
+        ACTIVE.set(this);
+        long start = System.nanoTime();
+        try {
+            IProgressMonitor monitor = new NullProgressMonitor();
+            parser.createASTs(files, null, new String[0], requestor, monitor);
+        } finally {
+            jdtNanos.add(System.nanoTime() - start);
+            if (previous == null)
+                ACTIVE.remove();
+            else
+                ACTIVE.set(previous);
+        }
+    }
+
+    /*
+     * Splits the files into shards and resolves each shard with its own parser on a worker thread.
+     * Each JDT environment is single threaded, so this is the only way to spread the work across cores.
+     * Files in the same package are kept in the same shard, as that is where most unqualified references go.
+     * Everything else is resolved through the source roots, so bindings match a single batch.
+     */
+    private void parallelGenerate(String[] files, Supplier<FileASTRequestor> requestors, String[] roots) {
+        List<String[]> shards = createShards(files, threads);
+        log("Processing " + shards.size() + " shards on " + Math.min(threads, shards.size()) + " threads");
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, shards.size()));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (String[] shard : shards) {
+                FileASTRequestor requestor = requestors.get();
+                futures.add(executor.submit(() -> createASTs(createParser(roots), shard, requestor)));
+            }
+
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof RuntimeException ? (RuntimeException)e.getCause() : new RuntimeException(e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /*
+     * Each package goes to the shard with the fewest files so far. Packages are taken in sorted order, so every shard starts near the front of the output,
+     * and the files the OrderedRangeWriter is waiting on are done early. Contiguous shards would hold every later shard's output until the first one finished.
+     */
+    private static List<String[]> createShards(String[] files, int count) {
+        Map<String, List<String>> packages = new TreeMap<>();
+        for (String file : files) {
+            int idx = file.lastIndexOf('/');
+            packages.computeIfAbsent(idx == -1 ? "" : file.substring(0, idx), k -> new ArrayList<>()).add(file);
+        }
+
+        List<List<String>> shards = new ArrayList<>();
+        for (int x = 0; x < Math.min(count, packages.size()); x++)
+            shards.add(new ArrayList<>());
+
+        for (List<String> pkg : packages.values()) {
+            List<String> smallest = shards.get(0);
+            for (List<String> shard : shards) {
+                if (shard.size() < smallest.size())
+                    smallest = shard;
+            }
+            smallest.addAll(pkg);
+        }
 
-        FileASTRequestor requestor = new FileASTRequestor() {
+        List<String[]> ret = new ArrayList<>();
+        for (List<String> shard : shards)
+            ret.add(shard.toArray(new String[shard.size()]));
+        return ret;
+    }
+
+    /*
+     * The source roots JDT can find every file through, or null if any of them are not on disk where it would look.
+     * Like inputs from zips, other FileSystems, or suppliers that rename files. Those can only see each other in the same batch.
+     */
+    private String[] getSourceRoots(String[] files) {
+        Set<String> roots = new LinkedHashSet<>();
+        for (String file : files) {
+            String root = input.getRoot(file);
+            if (root == null || !new File(root, file).isFile())
+                return null;
+            roots.add(root);
+        }
+        return roots.toArray(new String[roots.size()]);
+    }
+
+    private FileASTRequestor createRequestor(OrderedRangeWriter writer, Map<String, String> hashes, Set<String> hits, SymbolPool symbols) {
+        return new FileASTRequestor() {
             @Override
             public void acceptAST(String path, CompilationUnit cu) {
                 path = path.replace(File.separatorChar, '/');
+                if (hits.contains(path))
+                    return; // Already written from the cache, it was only in the batch so the others could bind to it
+
+                long accepted = metrics.start();
+                long allocated = metrics.allocated();
+
+                RangeMap range = null;
+                try {
+                    String md5 = hashes.get(path);
+                    if (md5 == null) {
+                        long start = metrics.start();
+                        try (InputStream stream = input.getInput(path)) {
+                            md5 = contentHash.hash(stream);
+                        }
+                        metrics.stop("hash", start);
+                    }
 
-                Charset encoding = input.getEncoding(path);
-                if (encoding == null)
-                    encoding = StandardCharsets.UTF_8;
-
-                try (InputStream stream = input.getInput(path)) {
-                    String data = new String(Util.readStream(stream), encoding);
-                    String md5 = Util.md5(data, encoding);
-
-                    RangeMapBuilder builder = new RangeMapBuilder(RangeExtractor.this, path, md5);
-                    builders.put(path, builder);
+                    RangeMapBuilder builder = new RangeMapBuilder(RangeExtractor.this, path, md5, symbols);
 
-                    log("startProcessing \"" + path + "\" md5: " + md5);
+                    if (isLogging(Level.DEBUG))
+                        log("startProcessing \"" + path + "\" md5: " + md5);
 
-                    RangeMap cache = RangeExtractor.this.file_cache.get(path);
-                    if (builder.loadCache(cache)) {
-                        log("Cache Hit!");
-                        RangeExtractor.this.cache_hits++;
+                    // Anything hashed up front already missed the cache, only check again for files JDT found on its own.
+                    boolean cached = !hashes.containsKey(path) && loadCached(builder, path, md5);
+                    boolean errored = false;
+                    if (cached) {
+                        log(Level.DEBUG, "Cache Hit!");
+                        RangeExtractor.this.cache_hits.incrementAndGet();
+                        metrics.increment("cache.hits");
                     } else {
-                        if (cu.getProblems() != null && cu.getProblems().length > 0)
+                        if (cu.getProblems() != null && cu.getProblems().length > 0) {
                             Arrays.stream(cu.getProblems()).filter(p -> logWarnings || !p.isWarning()).forEach(p -> log("   Compile Error! " + p.toString()));
+                            errored = Arrays.stream(cu.getProblems()).anyMatch(p -> !p.isWarning());
+                        }
 
+                        long start = metrics.start();
                         SymbolReferenceWalker walker = new SymbolReferenceWalker(RangeExtractor.this, builder, enableMixins);
-                        rethrow(walker.safeWalk(cu));
+                        Throwable error = walker.safeWalk(cu);
+                        metrics.stop("walk", start);
+                        rethrow(error);
+                        errored |= error != null;
+                    }
+
+                    if (output != null || (cache != null && !cached))
+                        range = build(builder);
+                    if (errored)
+                        metrics.increment("errors");
+                    if (!cached && !errored)
+                        storeCached(path, md5, range);
+
+                    if (isLogging(Level.DEBUG)) {
+                        log("endProcessing \"" + path + "\"");
+                        log("");
                     }
-                    log("endProcessing \"" + path + "\"");
-                    log("");
                 } catch (IOException e) {
+                    failed = true;
+                    metrics.increment("errors");
                     e.printStackTrace(getErrorLogger());
+                } finally {
+                    // Always complete, even on failure, so later files are not held waiting on this one.
+                    writer.complete(path, range);
+                    callbackNanos.add(System.nanoTime() - accepted);
+                    metrics.file(path, accepted, allocated);
                 }
             }
         };
+    }
 
-        IProgressMonitor monitor = new NullProgressMonitor();
-
-        parser.createASTs(files, null, new String[0], requestor, monitor);
-
-        if (output != null) {
-            List<String> names = new ArrayList<>(builders.keySet());
-            Collections.sort(names);
+    private boolean loadCached(RangeMapBuilder builder, String path, String md5) {
+        if (builder.loadCache(this.file_cache.get(path)))
+            return true;
+        return this.cache != null && builder.loadCache(this.cache.get(path, md5));
+    }
 
-            for (String path : names) {
-                RangeMapBuilder builder = builders.get(path);
-                RangeMap range = builder.build();
-                range.write(output, true);
-            }
+    // Files with compile errors are not stored, their bindings depend on things outside the cache key, like the rest of the source tree.
+    private void storeCached(String path, String md5, RangeMap range) {
+        if (this.cache == null)
+            return;
+        try {
+            this.cache.put(path, md5, range);
+        } catch (IOException e) {
+            log("Failed to write cache entry for " + path + ": " + e.getMessage());
         }
+    }
 
-        cleanup();
+    private RangeMap build(RangeMapBuilder builder) {
+        long start = metrics.start();
+        RangeMap ret = builder.build();
+        metrics.stop("build", start);
+        metrics.addEntries(ret);
+        if (builder.getOverlaps() != 0)
+            metrics.add("overlaps", builder.getOverlaps());
+        return ret;
+    }
 
-        RangeExtractor.INSTANCE = null;
-        return true;
+    private void writeRange(RangeMap range) {
+        if (output == null)
+            return;
+        long start = metrics.start();
+        try {
+            output.write(range);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write range map for " + range.getFilename(), e);
+        }
+        metrics.stop("write", start);
     }
 
     @SuppressWarnings("unchecked")
@@ -273,16 +595,40 @@ public class RangeExtractor extends ConfLogger<RangeExtractor> {
             throw (E)error;
     }
 
-    private void cleanup() {
+    /*
+     * Finished is only true when every file was extracted and written, the output is only allowed to drop old maps then.
+     */
+    private void cleanup(boolean finished) {
         try {
             input.close();
         } catch (IOException e) {
             e.printStackTrace(getErrorLogger());
         }
 
+        if (cache != null) {
+            log("Cache: " + cache.getHits() + " hits, " + cache.getMisses() + " misses, " + cache.getStored() + " stored");
+            try {
+                int evicted = cache.evict();
+                if (evicted > 0)
+                    log("Cache: evicted " + evicted + " entries");
+            } catch (IOException | UncheckedIOException e) {
+                // The range maps are already written, a cache we can't trim shouldn't fail the run
+                e.printStackTrace(getErrorLogger());
+            }
+        }
+
         if (output != null) {
-            output.flush();
-            output.close();
+            try {
+                if (finished)
+                    output.finish();
+            } catch (IOException e) {
+                e.printStackTrace(getErrorLogger());
+            }
+            try {
+                output.close();
+            } catch (IOException e) {
+                e.printStackTrace(getErrorLogger());
+            }
             output = null;
         }
     }
@@ -294,7 +640,7 @@ public class RangeExtractor extends ConfLogger<RangeExtractor> {
     }
 
     public int getCacheHits() {
-        return this.cache_hits;
+        return this.cache_hits.get();
     }
 
     public boolean canBatchASTs() {
@@ -302,8 +648,12 @@ public class RangeExtractor extends ConfLogger<RangeExtractor> {
     }
 
     private ASTParser createParser(String srcRoot) {
+        return createParser(srcRoot == null ? null : new String[] {srcRoot});
+    }
+
+    private ASTParser createParser(String[] srcRoots) {
         ASTParser parser = ASTParser.newParser(AST.getJLSLatest());
-        parser.setEnvironment(getLibArray(), srcRoot == null ? null : new String[] {srcRoot}, null, true);
+        parser.setEnvironment(getLibArray(), srcRoots, null, true);
         return setOptions(parser);
     }
 
@@ -321,12 +671,26 @@ public class RangeExtractor extends ConfLogger<RangeExtractor> {
 
     //ASM redirect for JDT's Util.getFileCharContent(File, String) to allow us to use our inputs
     public static char[] getFileCharContent(String path, String encoding) {
-        RangeExtractor range = RangeExtractor.INSTANCE; //TODO: Find a way to make this non-static
+        RangeExtractor extractor = ACTIVE.get();
+        if (extractor == null)
+            throw new IllegalStateException("No RangeExtractor input bound to " + Thread.currentThread().getName() + " while reading " + path);
+
+        long start = System.nanoTime();
+        try {
+            return extractor.readChars(path);
+        } finally {
+            long time = System.nanoTime() - start;
+            extractor.metrics.time("read", time);
+            extractor.callbackNanos.add(time);
+        }
+    }
 
-        Charset charset = range.input.getEncoding(path);
-        encoding = charset == null ? StandardCharsets.UTF_8.name() : charset.name();
+    private char[] readChars(String path) {
+        InputSupplier supplier = this.input;
+        Charset charset = supplier.getEncoding(path);
+        String encoding = charset == null ? StandardCharsets.UTF_8.name() : charset.name();
 
-        try(InputStream input = RangeExtractor.INSTANCE.input.getInput(path);
+        try(InputStream input = supplier.getInput(path);
             BufferedReader reader = new BufferedReader(new InputStreamReader(input, encoding));
         ) {
             CharArrayWriter writer = new CharArrayWriter();
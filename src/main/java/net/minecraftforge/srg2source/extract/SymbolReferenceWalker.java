@@ -594,11 +594,27 @@ public class SymbolReferenceWalker {
     }
 
     /**
-     * Right now we do not dump import range information.
-     * The Applier does very rudimentary import management itself.
-     * We may expose this information in the future, if there becomes a need for it.
+     * The import block is output as a whole, so the applier knows exactly where to put new imports
+     * without having to scan the text itself. It has to be added before the individual imports, as they share a start.
+     */
+    private boolean process(CompilationUnit node) {
+        @SuppressWarnings("unchecked")
+        List<ImportDeclaration> imports = (List<ImportDeclaration>)node.imports();
+        if (!imports.isEmpty()) {
+            ImportDeclaration first = imports.get(0);
+            ImportDeclaration last = imports.get(imports.size() - 1);
+            int start = first.getStartPosition();
+            builder.addImportBlock(start, last.getStartPosition() + last.getLength() - start);
+        }
+        return true;
+    }
+
+    /**
+     * We only output the location and name of each import, the names inside are not references we rename.
+     * The Applier rewrites the imports itself, based on what the renamed code needs.
      */
     private boolean process(ImportDeclaration node) {
+        builder.addImportDeclaration(node.getStartPosition(), node.getLength(), node.getName().getFullyQualifiedName(), node.isStatic(), node.isOnDemand());
         return false; //Do not walk children, ignore it all
     }
 
@@ -745,7 +761,7 @@ public class SymbolReferenceWalker {
         @Override public boolean visit(ConditionalExpression           node) { return true; }
         @Override public boolean visit(ConstructorInvocation           node) { return true; }
         @Override public boolean visit(ContinueStatement               node) { return process(node); }
-        @Override public boolean visit(CompilationUnit                 node) { return true; }
+        @Override public boolean visit(CompilationUnit                 node) { return process(node); }
         @Override public boolean visit(CreationReference               node) { return true; }
         @Override public boolean visit(Dimension                       node) { return true; }
         @Override public boolean visit(DoStatement                     node) { return true; }
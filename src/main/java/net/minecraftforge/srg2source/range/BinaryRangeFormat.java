@@ -0,0 +1,344 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.range;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+import net.minecraftforge.srg2source.range.entries.ClassLiteral;
+import net.minecraftforge.srg2source.range.entries.ClassPackageReference;
+import net.minecraftforge.srg2source.range.entries.ClassReference;
+import net.minecraftforge.srg2source.range.entries.FieldLiteral;
+import net.minecraftforge.srg2source.range.entries.FieldReference;
+import net.minecraftforge.srg2source.range.entries.LocalVariableReference;
+import net.minecraftforge.srg2source.range.entries.MetaEntry;
+import net.minecraftforge.srg2source.range.entries.MethodLiteral;
+import net.minecraftforge.srg2source.range.entries.MethodReference;
+import net.minecraftforge.srg2source.range.entries.MixinAccessorMeta;
+import net.minecraftforge.srg2source.range.entries.PackageReference;
+import net.minecraftforge.srg2source.range.entries.ParameterReference;
+import net.minecraftforge.srg2source.range.entries.RangeEntry;
+import net.minecraftforge.srg2source.range.entries.StructuralEntry;
+
+/*
+ * Binary range map layout, all numbers are unsigned LEB128 varints unless noted:
+ *   Header:  int MAGIC, int VERSION (big endian)
+ *   Blocks:  One per file, written in order as they are added:
+ *              structures: count, then [type, start delta, length, name, desc]
+ *              entries:    count, then [type, start delta, length, text, type specific fields...]
+ *            The block starts with the byte length of the structures section, so entries can be read without decoding them.
+ *   Strings: count, then [byte length, UTF-8 bytes]
+ *   Index:   count, then [filename, hash, block offset, block length, meta count, meta...]
+ *   Trailer: long strings offset, long index offset, int MAGIC (big endian)
+ *
+ * Every string is stored as its index in the string table plus one, zero is null.
+ * Starts are zigzag encoded deltas from the previous start, so they stay small and survive unsorted input.
+ */
+final class BinaryRangeFormat {
+    static final int MAGIC = 0x53325352; // S2SR
+    static final int VERSION = 2; // 2: Import structures, older readers would index past their Type values
+    static final int HEADER_SIZE = 8;
+    static final int TRAILER_SIZE = 20;
+
+    private BinaryRangeFormat() {}
+
+    static void writeStructures(Buffer out, List<StructuralEntry> structures, ToIntFunction<String> strings) {
+        out.writeVarInt(structures.size());
+        int last = 0;
+        for (StructuralEntry entry : structures) {
+            out.writeVarInt(entry.getType().ordinal());
+            out.writeZigZag(entry.getStart() - last);
+            out.writeVarInt(entry.getLength());
+            out.writeVarInt(strings.applyAsInt(entry.getName()));
+            out.writeVarInt(strings.applyAsInt(entry.getDescriptor()));
+            last = entry.getStart();
+        }
+    }
+
+    private static <T extends Enum<T>> T readType(ByteBuffer in, T[] types, String kind) {
+        int type = readVarInt(in);
+        if (type < 0 || type >= types.length)
+            throw new IllegalArgumentException("Invalid binary range map, unknown " + kind + " type: " + type);
+        return types[type];
+    }
+
+    static void readStructures(ByteBuffer in, List<StructuralEntry> ret, IntFunction<String> strings) {
+        int count = readVarInt(in);
+        int last = 0;
+        StructuralEntry.Type[] types = StructuralEntry.Type.values();
+        for (int x = 0; x < count; x++) {
+            StructuralEntry.Type type = readType(in, types, "structure");
+            int start = last + readZigZag(in);
+            int length = readVarInt(in);
+            String name = strings.apply(readVarInt(in));
+            String desc = strings.apply(readVarInt(in));
+            last = start;
+
+            switch (type) {
+                case CLASS:      ret.add(StructuralEntry.createClass(start, length, name)); break;
+                case METHOD:     ret.add(StructuralEntry.createMethod(start, length, name, desc)); break;
+                case ENUM:       ret.add(StructuralEntry.createEnum(start, length, name)); break;
+                case ANNOTATION: ret.add(StructuralEntry.createAnnotation(start, length, name)); break;
+                case INTERFACE:  ret.add(StructuralEntry.createInterface(start, length, name)); break;
+                case RECORD:     ret.add(StructuralEntry.createRecord(start, length, name)); break;
+                case IMPORTS:    ret.add(StructuralEntry.createImports(start, length)); break;
+                case IMPORT:     ret.add(StructuralEntry.createImport(start, length, name, desc)); break;
+                default:
+                    throw new IllegalArgumentException("Unknown Structure Type: " + type);
+            }
+        }
+    }
+
+    static void writeEntries(Buffer out, List<RangeEntry> entries, ToIntFunction<String> strings) {
+        out.writeVarInt(entries.size());
+        int last = 0;
+        for (RangeEntry info : entries) {
+            out.writeVarInt(info.getType().ordinal());
+            out.writeZigZag(info.getStart() - last);
+            out.writeVarInt(info.getLength());
+            out.writeVarInt(strings.applyAsInt(info.getText()));
+            last = info.getStart();
+
+            switch (info.getType()) {
+                case PACKAGE:
+                    break;
+                case CLASS: {
+                    ClassReference ref = (ClassReference)info;
+                    out.writeVarInt(strings.applyAsInt(ref.getClassName()));
+                    out.write(ref.isQualified() ? 1 : 0);
+                    break;
+                }
+                case CLASS_PACKAGE:
+                    out.writeVarInt(strings.applyAsInt(((ClassPackageReference)info).getClassName()));
+                    break;
+                case CLASS_LITERAL:
+                    out.writeVarInt(strings.applyAsInt(((ClassLiteral)info).getClassName()));
+                    break;
+                case FIELD:
+                    out.writeVarInt(strings.applyAsInt(((FieldReference)info).getOwner()));
+                    break;
+                case FIELD_LITERAL: {
+                    FieldLiteral ref = (FieldLiteral)info;
+                    out.writeVarInt(strings.applyAsInt(ref.getOwner()));
+                    out.writeVarInt(strings.applyAsInt(ref.getName()));
+                    break;
+                }
+                case METHOD: {
+                    MethodReference ref = (MethodReference)info;
+                    out.writeVarInt(strings.applyAsInt(ref.getOwner()));
+                    out.writeVarInt(strings.applyAsInt(ref.getName()));
+                    out.writeVarInt(strings.applyAsInt(ref.getDescriptor()));
+                    break;
+                }
+                case METHOD_LITERAL: {
+                    MethodLiteral ref = (MethodLiteral)info;
+                    out.writeVarInt(strings.applyAsInt(ref.getOwner()));
+                    out.writeVarInt(strings.applyAsInt(ref.getName()));
+                    out.writeVarInt(strings.applyAsInt(ref.getDescriptor()));
+                    break;
+                }
+                case PARAMETER: {
+                    ParameterReference ref = (ParameterReference)info;
+                    out.writeVarInt(strings.applyAsInt(ref.getOwner()));
+                    out.writeVarInt(strings.applyAsInt(ref.getName()));
+                    out.writeVarInt(strings.applyAsInt(ref.getDescriptor()));
+                    out.writeZigZag(ref.getIndex());
+                    break;
+                }
+                case LOCAL_VARIABLE: {
+                    LocalVariableReference ref = (LocalVariableReference)info;
+                    out.writeVarInt(strings.applyAsInt(ref.getOwner()));
+                    out.writeVarInt(strings.applyAsInt(ref.getName()));
+                    out.writeVarInt(strings.applyAsInt(ref.getDescriptor()));
+                    out.writeZigZag(ref.getIndex());
+                    out.writeVarInt(strings.applyAsInt(ref.getVarType()));
+                    break;
+                }
+                default:
+                    throw new IllegalArgumentException("Unknown RangeEntry type: " + info);
+            }
+        }
+    }
+
+    static void readEntries(ByteBuffer in, List<RangeEntry> ret, IntFunction<String> strings) {
+        int count = readVarInt(in);
+        int last = 0;
+        RangeEntry.Type[] types = RangeEntry.Type.values();
+        for (int x = 0; x < count; x++) {
+            RangeEntry.Type type = readType(in, types, "entry");
+            int start = last + readZigZag(in);
+            int length = readVarInt(in);
+            String text = strings.apply(readVarInt(in));
+            last = start;
+
+            switch (type) {
+                case PACKAGE:
+                    ret.add(PackageReference.create(start, length, text));
+                    break;
+                case CLASS:
+                    ret.add(ClassReference.create(start, length, text, strings.apply(readVarInt(in)), in.get() != 0));
+                    break;
+                case CLASS_PACKAGE:
+                    ret.add(ClassPackageReference.create(start, length, text, strings.apply(readVarInt(in))));
+                    break;
+                case CLASS_LITERAL:
+                    ret.add(ClassLiteral.create(start, length, text, strings.apply(readVarInt(in))));
+                    break;
+                case FIELD:
+                    ret.add(FieldReference.create(start, length, text, strings.apply(readVarInt(in))));
+                    break;
+                case FIELD_LITERAL: {
+                    String owner = strings.apply(readVarInt(in));
+                    String name = strings.apply(readVarInt(in));
+                    ret.add(FieldLiteral.create(start, length, text, owner, name));
+                    break;
+                }
+                case METHOD: {
+                    String owner = strings.apply(readVarInt(in));
+                    String name = strings.apply(readVarInt(in));
+                    String desc = strings.apply(readVarInt(in));
+                    ret.add(MethodReference.create(start, length, text, owner, name, desc));
+                    break;
+                }
+                case METHOD_LITERAL: {
+                    String owner = strings.apply(readVarInt(in));
+                    String name = strings.apply(readVarInt(in));
+                    String desc = strings.apply(readVarInt(in));
+                    ret.add(MethodLiteral.create(start, length, text, owner, name, desc));
+                    break;
+                }
+                case PARAMETER: {
+                    String owner = strings.apply(readVarInt(in));
+                    String name = strings.apply(readVarInt(in));
+                    String desc = strings.apply(readVarInt(in));
+                    int index = readZigZag(in);
+                    ret.add(ParameterReference.create(start, length, text, owner, name, desc, index));
+                    break;
+                }
+                case LOCAL_VARIABLE: {
+                    String owner = strings.apply(readVarInt(in));
+                    String name = strings.apply(readVarInt(in));
+                    String desc = strings.apply(readVarInt(in));
+                    int index = readZigZag(in);
+                    String varType = strings.apply(readVarInt(in));
+                    ret.add(LocalVariableReference.create(start, length, text, owner, name, desc, index, varType));
+                    break;
+                }
+                default:
+                    throw new IllegalArgumentException("Unknown RangeEntry type: " + type);
+            }
+        }
+    }
+
+    static void writeMeta(Buffer out, List<MetaEntry> meta, ToIntFunction<String> strings) {
+        out.writeVarInt(meta.size());
+        for (MetaEntry entry : meta) {
+            out.writeVarInt(entry.getType().ordinal());
+            switch (entry.getType()) {
+                case MIXIN_ACCESSOR: {
+                    MixinAccessorMeta acc = (MixinAccessorMeta)entry;
+                    out.writeVarInt(strings.applyAsInt(acc.getOwner().getOwner()));
+                    out.writeVarInt(strings.applyAsInt(acc.getOwner().getName()));
+                    out.writeVarInt(strings.applyAsInt(acc.getOwner().getDesc()));
+                    out.writeVarInt(strings.applyAsInt(acc.getTarget().getOwner()));
+                    out.writeVarInt(strings.applyAsInt(acc.getTarget().getName()));
+                    out.writeVarInt(strings.applyAsInt(acc.getTarget().getDesc()));
+                    out.writeVarInt(strings.applyAsInt(acc.getPrefix()));
+                    break;
+                }
+                default:
+                    throw new IllegalArgumentException("Unknown Meta Type: " + entry.getType());
+            }
+        }
+    }
+
+    static void readMeta(ByteBuffer in, List<MetaEntry> ret, IntFunction<String> strings) {
+        int count = readVarInt(in);
+        MetaEntry.Type[] types = MetaEntry.Type.values();
+        for (int x = 0; x < count; x++) {
+            MetaEntry.Type type = readType(in, types, "meta");
+            switch (type) {
+                case MIXIN_ACCESSOR: {
+                    String[] pts = new String[7];
+                    for (int y = 0; y < pts.length; y++)
+                        pts[y] = strings.apply(readVarInt(in));
+                    ret.add(MixinAccessorMeta.create(pts[0], pts[1], pts[2], pts[3], pts[4], pts[5], pts[6]));
+                    break;
+                }
+                default:
+                    throw new IllegalArgumentException("Unknown Meta Type: " + type);
+            }
+        }
+    }
+
+    static int readVarInt(ByteBuffer in) {
+        int ret = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.get();
+            ret |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return ret;
+        }
+        throw new IllegalArgumentException("Malformed varint at " + (in.position() - 1));
+    }
+
+    static long readVarLong(ByteBuffer in) {
+        long ret = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            byte b = in.get();
+            ret |= (long)(b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return ret;
+        }
+        throw new IllegalArgumentException("Malformed varlong at " + (in.position() - 1));
+    }
+
+    static int readZigZag(ByteBuffer in) {
+        int value = readVarInt(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static class Buffer extends ByteArrayOutputStream {
+        Buffer() {
+            super(256);
+        }
+
+        void writeVarInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write(value);
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int)((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int)value);
+        }
+
+        void writeZigZag(int value) {
+            writeVarInt((value << 1) ^ (value >> 31));
+        }
+
+        void writeInt(int value) {
+            write(value >>> 24);
+            write(value >>> 16);
+            write(value >>> 8);
+            write(value);
+        }
+
+        void writeLong(long value) {
+            writeInt((int)(value >>> 32));
+            writeInt((int)value);
+        }
+    }
+}
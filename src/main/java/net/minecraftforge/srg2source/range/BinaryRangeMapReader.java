@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.range;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.minecraftforge.srg2source.range.entries.MetaEntry;
+import net.minecraftforge.srg2source.range.entries.RangeEntry;
+import net.minecraftforge.srg2source.range.entries.StructuralEntry;
+
+/*
+ * Reads range maps written by BinaryRangeMapWriter.
+ * Only the index and meta are decoded up front, each file's entries are decoded from the buffer when they are asked for.
+ * The buffer is never modified, every decode works on its own view so this is safe to use from multiple threads.
+ */
+public class BinaryRangeMapReader {
+    public static boolean isBinary(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            byte[] header = new byte[4];
+            return in.readNBytes(header, 0, 4) == 4 && ByteBuffer.wrap(header).getInt() == BinaryRangeFormat.MAGIC;
+        }
+    }
+
+    public static Map<String, RangeMap> readAll(Path path) throws IOException {
+        return open(path).getRangeMaps();
+    }
+
+    public static BinaryRangeMapReader open(Path path) throws IOException {
+        return new BinaryRangeMapReader(RangeMapFormat.map(path));
+    }
+
+    private final ByteBuffer data;
+    private final int[] stringOffsets;
+    private final String[] strings;
+    private final Map<String, RangeMap> maps;
+
+    public BinaryRangeMapReader(ByteBuffer data) {
+        this.data = data.duplicate();
+        int limit = this.data.limit();
+        if (limit < BinaryRangeFormat.HEADER_SIZE + BinaryRangeFormat.TRAILER_SIZE)
+            throw new IllegalArgumentException("Invalid binary range map, too small: " + limit);
+        if (this.data.getInt(0) != BinaryRangeFormat.MAGIC || this.data.getInt(limit - 4) != BinaryRangeFormat.MAGIC)
+            throw new IllegalArgumentException("Invalid binary range map, bad magic");
+        int version = this.data.getInt(4);
+        if (version != BinaryRangeFormat.VERSION)
+            throw new IllegalArgumentException("Invalid binary range map, unknown version: " + version);
+
+        int stringsOffset = offset("strings", this.data.getLong(limit - BinaryRangeFormat.TRAILER_SIZE), limit);
+        int indexOffset = offset("index", this.data.getLong(limit - BinaryRangeFormat.TRAILER_SIZE + 8), limit);
+
+        ByteBuffer buf = view(stringsOffset);
+        this.stringOffsets = new int[BinaryRangeFormat.readVarInt(buf)];
+        this.strings = new String[this.stringOffsets.length];
+        for (int x = 0; x < this.stringOffsets.length; x++) {
+            this.stringOffsets[x] = buf.position();
+            int len = BinaryRangeFormat.readVarInt(buf);
+            buf.position(buf.position() + len);
+        }
+
+        buf = view(indexOffset);
+        int count = BinaryRangeFormat.readVarInt(buf);
+        Map<String, RangeMap> maps = new LinkedHashMap<>();
+        for (int x = 0; x < count; x++) {
+            String filename = string(BinaryRangeFormat.readVarInt(buf));
+            String hash = string(BinaryRangeFormat.readVarInt(buf));
+            int offset = offset(filename, BinaryRangeFormat.readVarLong(buf), stringsOffset);
+            BinaryRangeFormat.readVarInt(buf); // Block length, only needed by readers that don't have random access
+            List<MetaEntry> meta = new ArrayList<>();
+            BinaryRangeFormat.readMeta(buf, meta, this::string);
+            maps.put(filename, new RangeMap(filename, hash, meta, new BlockLoader(offset)));
+        }
+        this.maps = Collections.unmodifiableMap(maps);
+    }
+
+    /*
+     * Offsets are written as longs, but a ByteBuffer can only address 2GB. Anything past that, or past the end of the data, would
+     * otherwise be truncated into a different valid looking position and decode garbage.
+     */
+    private static int offset(String name, long value, int limit) {
+        if (value < 0 || value > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Invalid binary range map, " + name + " offset " + value + " is larger than the 2GB that can be read");
+        if (value >= limit)
+            throw new IllegalArgumentException("Invalid binary range map, " + name + " offset " + value + " is past the end of the data: " + limit);
+        return (int)value;
+    }
+
+    public Map<String, RangeMap> getRangeMaps() {
+        return this.maps;
+    }
+
+    private ByteBuffer view(int offset) {
+        ByteBuffer ret = this.data.duplicate();
+        ret.position(offset);
+        return ret;
+    }
+
+    private String string(int index) {
+        if (index == 0)
+            return null;
+        String ret = this.strings[index - 1];
+        if (ret == null) {
+            ByteBuffer buf = view(this.stringOffsets[index - 1]);
+            int len = BinaryRangeFormat.readVarInt(buf);
+            byte[] bytes = new byte[len];
+            buf.get(bytes);
+            ret = new String(bytes, StandardCharsets.UTF_8);
+            this.strings[index - 1] = ret; // Racy, but Strings are immutable so the worst case is decoding twice.
+        }
+        return ret;
+    }
+
+    private class BlockLoader implements RangeMap.Loader {
+        private final int offset;
+
+        private BlockLoader(int offset) {
+            this.offset = offset;
+        }
+
+        @Override
+        public void load(List<RangeEntry> entries, List<StructuralEntry> structures) {
+            ByteBuffer buf = view(offset);
+            BinaryRangeFormat.readVarInt(buf); // Structures length, only needed to skip them
+            BinaryRangeFormat.readStructures(buf, structures, BinaryRangeMapReader.this::string);
+            BinaryRangeFormat.readEntries(buf, entries, BinaryRangeMapReader.this::string);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.range;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.minecraftforge.srg2source.range.BinaryRangeFormat.Buffer;
+
+/*
+ * Writes range maps in the binary format described in BinaryRangeFormat.
+ * Maps are written as they are added, only the string table and index are held until close.
+ */
+public class BinaryRangeMapWriter implements IRangeMapWriter {
+    private final OutputStream out;
+    private final Map<String, Integer> strings = new HashMap<>();
+    private final List<String> stringList = new ArrayList<>();
+    private final Buffer index = new Buffer();
+    private int count = 0;
+    private long position = 0;
+    private boolean closed = false;
+
+    public BinaryRangeMapWriter(OutputStream out) throws IOException {
+        this.out = new BufferedOutputStream(out);
+        Buffer header = new Buffer();
+        header.writeInt(BinaryRangeFormat.MAGIC);
+        header.writeInt(BinaryRangeFormat.VERSION);
+        write(header);
+    }
+
+    @Override
+    public void write(RangeMap map) throws IOException {
+        if (closed)
+            throw new IllegalStateException("Can not write to a closed range map writer");
+        map = map.load();
+
+        Buffer structures = new Buffer();
+        BinaryRangeFormat.writeStructures(structures, map.getStructures(), this::string);
+
+        Buffer block = new Buffer();
+        block.writeVarInt(structures.size());
+        structures.writeTo(block);
+        BinaryRangeFormat.writeEntries(block, map.getEntries(), this::string);
+
+        index.writeVarInt(string(map.getFilename()));
+        index.writeVarInt(string(map.getHash()));
+        index.writeVarLong(position);
+        index.writeVarInt(block.size());
+        BinaryRangeFormat.writeMeta(index, map.getMeta(), this::string);
+        count++;
+
+        write(block);
+    }
+
+    private int string(String value) {
+        if (value == null)
+            return 0;
+        return strings.computeIfAbsent(value, k -> {
+            stringList.add(k);
+            return stringList.size();
+        });
+    }
+
+    private void write(Buffer data) throws IOException {
+        data.writeTo(out);
+        position += data.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+
+        long stringsOffset = position;
+        Buffer buf = new Buffer();
+        buf.writeVarInt(stringList.size());
+        for (String value : stringList) {
+            byte[] data = value.getBytes(StandardCharsets.UTF_8);
+            buf.writeVarInt(data.length);
+            buf.write(data, 0, data.length);
+        }
+        write(buf);
+
+        long indexOffset = position;
+        buf = new Buffer();
+        buf.writeVarInt(count);
+        index.writeTo(buf);
+        write(buf);
+
+        buf = new Buffer();
+        buf.writeLong(stringsOffset);
+        buf.writeLong(indexOffset);
+        buf.writeInt(BinaryRangeFormat.MAGIC);
+        write(buf);
+
+        out.close();
+    }
+}
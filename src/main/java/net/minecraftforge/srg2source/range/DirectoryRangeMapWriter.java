@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.range;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+
+/*
+ * Writes every range map to its own text file, {root}/{filename}.range
+ * Files whose content has not changed are left alone, so re-extracting a tree only touches what changed.
+ * The files written by each finished run are listed in {root}/.ranges, and the next finished run deletes the ones it didn't write,
+ * so sources that were removed don't leave their maps behind. Nothing that isn't in that list is ever deleted.
+ */
+public class DirectoryRangeMapWriter implements IRangeMapWriter {
+    static final String MANIFEST = ".ranges";
+
+    private final Path root;
+    private int written = 0;
+    private int unchanged = 0;
+    private int deleted = 0;
+    private final Set<String> targets = new TreeSet<>();
+
+    public DirectoryRangeMapWriter(Path root) throws IOException {
+        this.root = root;
+        Files.createDirectories(root);
+    }
+
+    @Override
+    public void write(RangeMap range) throws IOException {
+        String name = RangeMapFormat.getEntryName(range.getFilename());
+        Path target = this.root.resolve(name);
+        byte[] data = RangeMapFormat.toBytes(range);
+        targets.add(name);
+
+        if (Files.exists(target) && Files.size(target) == data.length && Arrays.equals(data, Files.readAllBytes(target))) {
+            unchanged++;
+            return;
+        }
+
+        Path parent = target.getParent();
+        if (parent != null && !Files.exists(parent))
+            Files.createDirectories(parent);
+        Files.write(target, data);
+        written++;
+    }
+
+    public int getWritten() {
+        return this.written;
+    }
+
+    public int getUnchanged() {
+        return this.unchanged;
+    }
+
+    public int getDeleted() {
+        return this.deleted;
+    }
+
+    @Override
+    public void finish() throws IOException {
+        Path manifest = this.root.resolve(MANIFEST);
+        if (Files.exists(manifest)) {
+            Path base = this.root.toAbsolutePath().normalize();
+            for (String name : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+                if (name.isEmpty() || !name.endsWith(".range") || targets.contains(name))
+                    continue;
+                Path file = base.resolve(name).normalize();
+                if (file.startsWith(base) && Files.deleteIfExists(file))
+                    deleted++;
+            }
+        }
+        Files.write(manifest, targets, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Every file is complete once it is written, there is nothing to flush.
+    }
+}
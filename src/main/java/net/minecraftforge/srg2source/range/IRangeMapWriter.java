@@ -0,0 +1,19 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.range;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+public interface IRangeMapWriter extends Closeable {
+    void write(RangeMap range) throws IOException;
+
+    /*
+     * Called before close, only when every file in the run was extracted and written.
+     * Failed or empty runs just close, so anything that removes output not written by this run belongs here.
+     */
+    default void finish() throws IOException {}
+}
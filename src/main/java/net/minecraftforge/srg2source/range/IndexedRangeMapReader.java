@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.range;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import net.minecraftforge.srg2source.range.entries.MetaEntry;
+import net.minecraftforge.srg2source.range.entries.RangeEntry;
+import net.minecraftforge.srg2source.range.entries.StructuralEntry;
+import net.minecraftforge.srg2source.util.Util;
+
+/*
+ * Reads the single file text format without parsing every entry up front.
+ * Loading only scans the bytes for the start/end of each block, decoding just the start and meta lines.
+ * Each block is decoded and parsed when its entries are asked for, and nothing is kept afterwards.
+ * Follows the same rules as RangeMap.readAll, the markers we look for are all ASCII so scanning the raw UTF-8 is safe.
+ */
+public class IndexedRangeMapReader {
+    /*
+     * Read into the heap, not mapped. The lazy maps hold the buffer until they are collected, and on Windows a mapped file
+     * can't be replaced or deleted until then, which breaks re-extracting to the same file in the same JVM.
+     */
+    public static Map<String, RangeMap> readAll(Path path) throws IOException {
+        return new IndexedRangeMapReader(ByteBuffer.wrap(Files.readAllBytes(path)), path.toString()).getRangeMaps();
+    }
+
+    private final ByteBuffer data;
+    private final String source;
+    private final Map<String, RangeMap> maps;
+    private int pos = 0;
+    private int line = -1;
+
+    public IndexedRangeMapReader(ByteBuffer data, String source) {
+        this.data = data.duplicate();
+        this.source = source;
+
+        Map<String, RangeMap> maps = new HashMap<>();
+        int lineStart;
+        while ((lineStart = nextLine()) != -1) {
+            String text = RangeMap.stripComment(decode(lineStart, pos)).trim();
+            if (text.isEmpty())
+                continue;
+
+            if (text.startsWith("start ")) {
+                int startLine = line;
+                List<String> pts = Util.unquote(text, 3);
+                if (pts.size() != 4)
+                    throw new IllegalArgumentException("Invalid RangeMap line #" + line + ": " + text);
+                int spec = -1;
+                try {
+                    spec = Integer.parseInt(pts.get(1));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid RangeMap line #" + line + ": " + text);
+                }
+                if (!RangeMap.isKnownSpec(spec))
+                    throw new IllegalArgumentException("Invalid RangeMap line #" + line + " Unknown Spec: " + text);
+
+                int blockStart = skipEol(pos);
+                int blockEnd = -1;
+                List<MetaEntry> meta = new ArrayList<>();
+                while ((lineStart = nextLine()) != -1) {
+                    if (isEnd(lineStart, pos)) {
+                        blockEnd = lineStart;
+                        break;
+                    }
+                    if (isMeta(lineStart, pos)) {
+                        String metaLine = RangeMap.stripComment(decode(lineStart, pos)).trim();
+                        meta.add(MetaEntry.read(spec, metaLine.substring(metaLine.indexOf(' ') + 1)));
+                    }
+                }
+
+                if (blockEnd == -1)
+                    throw new IllegalArgumentException("Invalid RangeMap. Start on line #" + startLine + " with no end");
+
+                maps.put(pts.get(2), new RangeMap(pts.get(2), pts.get(3), meta, new BlockLoader(spec, pts.get(2), pts.get(3), blockStart, blockEnd)));
+            } else if ("end".equals(text)) {
+                throw new IllegalArgumentException("Invalid RangeMap. End on line #" + line + " with no start");
+            }
+        }
+        this.maps = Collections.unmodifiableMap(maps);
+    }
+
+    public Map<String, RangeMap> getRangeMaps() {
+        return this.maps;
+    }
+
+    // Moves pos to the end of the next line, not including the line terminator, and returns where that line started.
+    private int nextLine() {
+        int limit = data.limit();
+        if (line != -1)
+            pos = skipEol(pos);
+        if (pos >= limit)
+            return -1;
+
+        int start = pos;
+        while (pos < limit) {
+            byte b = data.get(pos);
+            if (b == '\n' || b == '\r')
+                break;
+            pos++;
+        }
+        line++;
+        return start;
+    }
+
+    // Line terminators are \n, \r or \r\n, the same as BufferedReader
+    private int skipEol(int idx) {
+        int limit = data.limit();
+        if (idx < limit && data.get(idx) == '\r')
+            idx++;
+        else if (idx < limit && data.get(idx) == '\n')
+            return idx + 1;
+        if (idx < limit && data.get(idx) == '\n' && data.get(idx - 1) == '\r')
+            idx++;
+        return idx;
+    }
+
+    // Matches "end" or "end#comment", the same as readAll. Indented ends do not close a block.
+    private boolean isEnd(int start, int end) {
+        if (end - start < 3 || data.get(start) != 'e' || data.get(start + 1) != 'n' || data.get(start + 2) != 'd')
+            return false;
+        return end - start == 3 || data.get(start + 3) == '#';
+    }
+
+    private boolean isMeta(int start, int end) {
+        while (start < end && (data.get(start) == ' ' || data.get(start) == '\t'))
+            start++;
+        if (end - start < 5)
+            return false;
+        return data.get(start) == 'm' && data.get(start + 1) == 'e' && data.get(start + 2) == 't' && data.get(start + 3) == 'a' && data.get(start + 4) == ' ';
+    }
+
+    private String decode(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        ByteBuffer view = data.duplicate();
+        view.position(start);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private class BlockLoader implements RangeMap.Loader {
+        private final int spec;
+        private final String filename;
+        private final String hash;
+        private final int start;
+        private final int end;
+
+        private BlockLoader(int spec, String filename, String hash, int start, int end) {
+            this.spec = spec;
+            this.filename = filename;
+            this.hash = hash;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public void load(List<RangeEntry> entries, List<StructuralEntry> structures) {
+            try {
+                List<String> lines = decode(start, end).lines().collect(Collectors.toList());
+                // A pool per load, like the split maps. The reader lives for the whole apply run, a shared pool would keep
+                // the symbols of every file ever loaded alive long after the entries using them are gone.
+                RangeMap range = new RangeMap(new SymbolPool(), spec, filename, hash, lines, 0, lines.size());
+                entries.addAll(range.getEntries());
+                structures.addAll(range.getStructures());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid RangeMap " + source + " for " + filename, e);
+            }
+        }
+    }
+}
@@ -27,12 +27,25 @@ import net.minecraftforge.srg2source.range.entries.StructuralEntry;
 import net.minecraftforge.srg2source.util.Util;
 
 public class RangeMap {
-    private final int SPEC = 1;
+    /*
+     * 1: The original format
+     * 2: Import structures, importsdef and importdef lines. Maps without any are still written as 1, so older readers can apply them.
+     */
+    static final int SPEC = 2;
+
+    static boolean isKnownSpec(int spec) {
+        return spec >= 1 && spec <= SPEC;
+    }
 
-    //TODO: Support output types:
-    // Directory: every range file is split into it's own file. Would allow for easier navigation/debug
-    // Zip: Same as directory, but also compressed, easier debugging, and lower file size
+    // Other layouts are in RangeMapFormat, Directory and Zip split every range map into its own file/entry.
     public static Map<String, RangeMap> readAll(InputStream stream) throws IOException {
+        return readAll(stream, new SymbolPool());
+    }
+
+    /*
+     * Shares the pool between calls, so symbols are only held once across everything read with it.
+     */
+    public static Map<String, RangeMap> readAll(InputStream stream, SymbolPool pool) throws IOException {
         Map<String, RangeMap> ret = new HashMap<>();
         List<String> lines = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8)).lines().collect(Collectors.toList());
         for (int x = 0; x < lines.size(); x++) {
@@ -59,8 +72,8 @@ public class RangeMap {
                 if (end == lines.size())
                     throw new IllegalArgumentException("Invalid RangeMap. Start on line #" + x + " with no end");
 
-                if (spec == 1)
-                    ret.put(pts.get(2), new RangeMap(spec, pts.get(2), pts.get(3), lines, x + 1, end));
+                if (isKnownSpec(spec))
+                    ret.put(pts.get(2), new RangeMap(pool, spec, pts.get(2), pts.get(3), lines, x + 1, end));
                 else
                     throw new IllegalArgumentException("Invalid RangeMap line #" + x + " Unknown Spec: " + lines.get(x));
 
@@ -72,13 +85,68 @@ public class RangeMap {
         return ret;
     }
 
+    /*
+     * Reads a file holding a single range map, only the start line and meta are read now.
+     * The entries and structures are parsed from a fresh stream every time they are asked for.
+     */
+    static RangeMap readLazy(Opener opener, String source) throws IOException {
+        String filename = null;
+        String hash = null;
+        int spec = -1;
+        List<MetaEntry> meta = new ArrayList<>();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(opener.open(), StandardCharsets.UTF_8))) {
+            String raw;
+            while ((raw = reader.readLine()) != null) {
+                String line = stripComment(raw).trim();
+                if (line.isEmpty())
+                    continue;
+
+                if (filename == null) {
+                    List<String> pts = Util.unquote(line, 3);
+                    if (!line.startsWith("start ") || pts.size() != 4)
+                        throw new IllegalArgumentException("Invalid RangeMap " + source + " must begin with a start line: " + raw);
+                    try {
+                        spec = Integer.parseInt(pts.get(1));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Invalid RangeMap " + source + ": " + raw);
+                    }
+                    if (!isKnownSpec(spec))
+                        throw new IllegalArgumentException("Invalid RangeMap " + source + " Unknown Spec: " + raw);
+                    filename = pts.get(2);
+                    hash = pts.get(3);
+                } else if (line.startsWith("meta "))
+                    meta.add(MetaEntry.read(spec, line.substring(5)));
+                else
+                    break;
+            }
+        }
+
+        if (filename == null)
+            throw new IllegalArgumentException("Invalid RangeMap " + source + " missing start line");
+
+        return new RangeMap(filename, hash, meta, (entries, structures) -> {
+            try (InputStream in = opener.open()) {
+                Map<String, RangeMap> ranges = readAll(in);
+                if (ranges.size() != 1)
+                    throw new IllegalStateException("Invalid RangeMap " + source + " expected one file, found " + ranges.size());
+                RangeMap range = ranges.values().iterator().next();
+                entries.addAll(range.getEntries());
+                structures.addAll(range.getStructures());
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to read RangeMap " + source, e);
+            }
+        });
+    }
+
     private final String filename;
     private final String hash;
     private final List<RangeEntry> entries;
     private final List<StructuralEntry> structures;
     private final List<MetaEntry> meta;
+    private final Loader loader;
 
-    private RangeMap(int spec, String filename, String hash, List<String> lines, int start, int end) {
+    RangeMap(SymbolPool pool, int spec, String filename, String hash, List<String> lines, int start, int end) {
         this.filename = filename;
         this.hash = hash;
         final List<RangeEntry> entries = new ArrayList<>();
@@ -87,6 +155,7 @@ public class RangeMap {
         this.entries = Collections.unmodifiableList(entries);
         this.structures = Collections.unmodifiableList(structures);
         this.meta = Collections.unmodifiableList(meta);
+        this.loader = null;
 
         for (int x = start; x < end; x++) {
             String line = stripComment(lines.get(x)).trim();
@@ -103,7 +172,7 @@ public class RangeMap {
                 else if (type.endsWith("def")) //Structure
                     structures.add(StructuralEntry.read(spec, type.substring(0, type.length() - 3), line.substring(idx + 1)));
                 else //entry
-                    entries.add(RangeEntry.read(spec, type, line.substring(idx + 1)));
+                    entries.add(RangeEntry.read(pool, spec, type, line.substring(idx + 1)));
             } catch (Exception e) {
                 throw new IllegalArgumentException("Invalid RangeMap line #" + x + ": " + lines.get(x), e);
             }
@@ -116,6 +185,21 @@ public class RangeMap {
         this.entries = Collections.unmodifiableList(entries);
         this.structures = Collections.unmodifiableList(structures);
         this.meta = Collections.unmodifiableList(meta);
+        this.loader = null;
+    }
+
+    /*
+     * Lazy range map, the entries and structures are decoded by the loader every time they are asked for.
+     * Nothing is cached, so only the files currently being worked on are held in memory. Use load() to decode both once.
+     * Meta is small and needed up front for ClassMeta, so it is always eager.
+     */
+    RangeMap(String filename, String hash, List<MetaEntry> meta, Loader loader) {
+        this.filename = filename;
+        this.hash = hash;
+        this.entries = null;
+        this.structures = null;
+        this.meta = Collections.unmodifiableList(meta);
+        this.loader = loader;
     }
 
     public String getFilename() {
@@ -127,11 +211,24 @@ public class RangeMap {
     }
 
     public List<RangeEntry> getEntries() {
-        return this.entries;
+        return this.loader == null ? this.entries : load().getEntries();
     }
 
     public List<StructuralEntry> getStructures() {
-        return this.structures;
+        return this.loader == null ? this.structures : load().getStructures();
+    }
+
+    /*
+     * Decodes a lazy map's entries and structures together, hold on to the result while working on the file.
+     * Maps that are already in memory return themselves.
+     */
+    public RangeMap load() {
+        if (this.loader == null)
+            return this;
+        List<RangeEntry> entries = new ArrayList<>();
+        List<StructuralEntry> structures = new ArrayList<>();
+        this.loader.load(entries, structures);
+        return new RangeMap(filename, hash, entries, structures, meta);
     }
 
     public List<MetaEntry> getMeta() {
@@ -139,8 +236,10 @@ public class RangeMap {
     }
 
     public void write(PrintWriter out, boolean pretty) {
+        RangeMap loaded = load();
+        boolean imports = loaded.getStructures().stream().anyMatch(StructuralEntry::isImport);
         Writer writer = new Writer(out);
-        writer.accept(Util.quote("start", Integer.toString(SPEC), filename, hash));
+        writer.accept(Util.quote("start", Integer.toString(imports ? SPEC : 1), filename, hash));
 
         if (!meta.isEmpty()) {
             if (pretty) {
@@ -157,8 +256,9 @@ public class RangeMap {
             }
         }
 
+        List<RangeEntry> entries = loaded.getEntries();
         Stack<StructuralEntry> stack = new Stack<>();
-        Iterator<StructuralEntry> segments = structures.iterator();
+        Iterator<StructuralEntry> segments = loaded.getStructures().iterator();
 
         StructuralEntry last = null;
         StructuralEntry next = segments.hasNext() ? segments.next() : null;
@@ -174,6 +274,12 @@ public class RangeMap {
                 }
             }
 
+            // Imports have nothing inside them, so they are written as soon as we pass them, without nesting.
+            while (next != null && next.isImport() && entry.getStart() > next.getStart()) {
+                next.write(writer);
+                next = segments.hasNext() ? segments.next() : null;
+            }
+
             if (next != null) {
                 if (entry.getStart() > next.getStart()) {
                     next.write(writer);
@@ -183,8 +289,8 @@ public class RangeMap {
                         if (last != null)
                             stack.push(last);
                         last = next;
-                        next = segments.hasNext() ? segments.next() : null;
                     }
+                    next = segments.hasNext() ? segments.next() : null;
                 }
             }
 
@@ -211,6 +317,15 @@ public class RangeMap {
         writer.accept("end");
     }
 
+    @FunctionalInterface
+    interface Opener {
+        InputStream open() throws IOException;
+    }
+
+    interface Loader {
+        void load(List<RangeEntry> entries, List<StructuralEntry> structures);
+    }
+
     private static class Writer implements Consumer<String> {
         private int tabs = 0;
         private final PrintWriter out;
@@ -230,7 +345,7 @@ public class RangeMap {
         return e.getStart() + e.getLength();
     }
 
-    private static String stripComment(String line) {
+    static String stripComment(String line) {
         int idx = line.indexOf('#');
         return idx == -1 ? line : line.substring(0, idx);
     }
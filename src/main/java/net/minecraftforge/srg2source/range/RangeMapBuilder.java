@@ -33,11 +33,22 @@ public class RangeMapBuilder extends ConfLogger<RangeMapBuilder> {
     private final ConfLogger<?> logger;
     private final String filename;
     private final String hash;
+    private final SymbolPool pool;
+    private int overlaps = 0;
 
     public RangeMapBuilder(ConfLogger<?> logger, String filename, String hash) {
+        this(logger, filename, hash, new SymbolPool());
+    }
+
+    /*
+     * Every name, owner and descriptor added goes through the pool, share it between the builders of one batch.
+     * A pool that outlives the maps built with it keeps all their symbols alive, so don't hold one for a whole run.
+     */
+    public RangeMapBuilder(ConfLogger<?> logger, String filename, String hash, SymbolPool pool) {
         this.logger = logger;
         this.filename = filename;
         this.hash = hash;
+        this.pool = pool;
     }
 
     public String getFilename() {
@@ -52,9 +63,10 @@ public class RangeMapBuilder extends ConfLogger<RangeMapBuilder> {
         if (hash == null || !hash.equals(cache.getHash()))
             return false;
 
+        cache = cache.load();
         this.entries.addAll(cache.getEntries());
         this.structures.addAll(cache.getStructures());
-        this.meta.addAll(meta);
+        this.meta.addAll(cache.getMeta());
 
         return true;
     }
@@ -64,10 +76,18 @@ public class RangeMapBuilder extends ConfLogger<RangeMapBuilder> {
         // But lets sort them anyways
         Collections.sort(entries, (a, b) -> a.getStart() - b.getStart());
         Collections.sort(structures, (a, b) -> a.getStart() - b.getStart());
+        overlaps = 0;
         checkOverlaps(entries);
         return new RangeMap(filename, hash, entries, structures, meta);
     }
 
+    /*
+     * How many overlapping entries the last build found, they are logged as errors but otherwise kept.
+     */
+    public int getOverlaps() {
+        return this.overlaps;
+    }
+
     private void checkOverlaps(List<? extends IRange> lst) {
         if (lst.isEmpty())
             return;
@@ -76,6 +96,7 @@ public class RangeMapBuilder extends ConfLogger<RangeMapBuilder> {
         for (int x = 1; x < lst.size(); x++) {
             IRange next = lst.get(x);
             if (last.getStart() + last.getLength() >= next.getStart()) {
+                overlaps++;
                 logger.error("Overlap: " + last);
                 logger.error("         " + next);
             }
@@ -90,27 +111,38 @@ public class RangeMapBuilder extends ConfLogger<RangeMapBuilder> {
     }
 
     public void addAnnotationDeclaration(int start, int length, String name) {
-        addStructure(StructuralEntry.createAnnotation(start, length, name));
+        addStructure(StructuralEntry.createAnnotation(start, length, pool.get(name)));
     }
 
     public void addClassDeclaration(int start, int length, String name) {
-        addStructure(StructuralEntry.createClass(start, length, name));
+        addStructure(StructuralEntry.createClass(start, length, pool.get(name)));
     }
 
     public void addEnumDeclaration(int start, int length, String name) {
-        addStructure(StructuralEntry.createEnum(start, length, name));
+        addStructure(StructuralEntry.createEnum(start, length, pool.get(name)));
     }
 
     public void addRecordDeclaration(int start, int length, String name) {
-        addStructure(StructuralEntry.createRecord(start, length, name));
+        addStructure(StructuralEntry.createRecord(start, length, pool.get(name)));
     }
 
     public void addMethodDeclaration(int start, int length, String name, String desc) {
-        addStructure(StructuralEntry.createMethod(start, length, name, desc));
+        addStructure(StructuralEntry.createMethod(start, length, pool.get(name), pool.get(desc)));
     }
 
     public void addInterfaceDeclaration(int start, int length, String name) {
-        addStructure(StructuralEntry.createInterface(start, length, name));
+        addStructure(StructuralEntry.createInterface(start, length, pool.get(name)));
+    }
+
+    /*
+     * Must be added before the first import, as they start at the same place.
+     */
+    public void addImportBlock(int start, int length) {
+        addStructure(StructuralEntry.createImports(start, length));
+    }
+
+    public void addImportDeclaration(int start, int length, String name, boolean isStatic, boolean isOnDemand) {
+        addStructure(StructuralEntry.createImport(start, length, pool.get(name), isStatic, isOnDemand));
     }
 
     // Code Elements
@@ -119,43 +151,43 @@ public class RangeMapBuilder extends ConfLogger<RangeMapBuilder> {
     }
 
     public void addPackageReference(int start, int length, String name) {
-        addCode(PackageReference.create(start, length, name));
+        addCode(PackageReference.create(start, length, pool.get(name)));
     }
 
     public void addClassReference(int start, int length, String text, String internal, boolean qualified) {
-        addCode(ClassReference.create(start, length, text, internal, qualified));
+        addCode(ClassReference.create(start, length, pool.get(text), pool.get(internal), qualified));
     }
 
     public void addClassPackageReference(int start, int length, String text, String internal) {
-        addCode(ClassPackageReference.create(start, length, text, internal));
+        addCode(ClassPackageReference.create(start, length, pool.get(text), pool.get(internal)));
     }
 
     public void addClassLiteral(int start, int length, String text, String internal) {
-        addCode(ClassLiteral.create(start, length, text, internal));
+        addCode(ClassLiteral.create(start, length, pool.get(text), pool.get(internal)));
     }
 
     public void addFieldReference(int start, int length, String text, String owner) {
-        addCode(FieldReference.create(start, length, text, owner));
+        addCode(FieldReference.create(start, length, pool.get(text), pool.get(owner)));
     }
 
     public void addFieldLiteral(int start, int length, String text, String owner, String name) {
-        addCode(FieldLiteral.create(start, length, text, owner, name));
+        addCode(FieldLiteral.create(start, length, pool.get(text), pool.get(owner), pool.get(name)));
     }
 
     public void addMethodReference(int start, int length, String text, String owner, String name, String desc) {
-        addCode(MethodReference.create(start, length, text, owner, name, desc));
+        addCode(MethodReference.create(start, length, pool.get(text), pool.get(owner), pool.get(name), pool.get(desc)));
     }
 
     public void addMethodLiteral(int start, int length, String text, String owner, String name, String desc) {
-        addCode(MethodLiteral.create(start, length, text, owner, name, desc));
+        addCode(MethodLiteral.create(start, length, pool.get(text), pool.get(owner), pool.get(name), pool.get(desc)));
     }
 
     public void addParameterReference(int start, int length, String text, String owner, String name, String desc, int index) {
-        addCode(ParameterReference.create(start, length, text, owner, name, desc, index));
+        addCode(ParameterReference.create(start, length, pool.get(text), pool.get(owner), pool.get(name), pool.get(desc), index));
     }
 
     public void addLocalVariableReference(int start, int length, String text, String owner, String name, String desc, int index, String type) {
-        addCode(LocalVariableReference.create(start, length, text, owner, name, desc, index, type));
+        addCode(LocalVariableReference.create(start, length, pool.get(text), pool.get(owner), pool.get(name), pool.get(desc), index, pool.get(type)));
     }
 
     // Meta Elements
@@ -164,6 +196,6 @@ public class RangeMapBuilder extends ConfLogger<RangeMapBuilder> {
     }
 
     public void addMixinAccessor(String owner, String name, String desc, String targetOwner, String targetName, String targetDesc, String prefix) {
-        addMeta(MixinAccessorMeta.create(owner, name, desc, targetOwner, targetName, targetDesc, prefix));
+        addMeta(MixinAccessorMeta.create(pool.get(owner), pool.get(name), pool.get(desc), pool.get(targetOwner), pool.get(targetName), pool.get(targetDesc), pool.get(prefix)));
     }
 }
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.range;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+public enum RangeMapFormat {
+    TEXT,      // Single text file, the original format
+    BINARY,    // Single binary file, see BinaryRangeFormat
+    DIRECTORY, // Every range map in its own text file
+    ZIP;       // Every range map in its own compressed zip entry
+
+    public IRangeMapWriter createWriter(Path path) throws IOException {
+        if (this == DIRECTORY)
+            return new DirectoryRangeMapWriter(path);
+
+        Path parent = path.toAbsolutePath().getParent();
+        if (!Files.exists(parent))
+            Files.createDirectories(parent);
+
+        switch (this) {
+            case TEXT:   return new TextRangeMapWriter(new PrintWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8)));
+            case BINARY: return new BinaryRangeMapWriter(Files.newOutputStream(path));
+            case ZIP:    return new ZipRangeMapWriter(path);
+            default:
+                throw new IllegalStateException("Unknown range map format: " + this);
+        }
+    }
+
+    public static RangeMapFormat detect(Path path) throws IOException {
+        if (Files.isDirectory(path))
+            return DIRECTORY;
+
+        byte[] header = new byte[4];
+        try (InputStream in = Files.newInputStream(path)) {
+            if (in.readNBytes(header, 0, 4) != 4)
+                return TEXT;
+        }
+
+        int magic = ByteBuffer.wrap(header).getInt();
+        if (magic == BinaryRangeFormat.MAGIC)
+            return BINARY;
+        if (magic == 0x504B0304) // PK\3\4
+            return ZIP;
+        return TEXT;
+    }
+
+    public static Map<String, RangeMap> read(Path path) throws IOException {
+        switch (detect(path)) {
+            case BINARY:    return BinaryRangeMapReader.readAll(path);
+            case DIRECTORY: return SplitRangeMapReader.readDirectory(path);
+            case ZIP:       return SplitRangeMapReader.readZip(path);
+            default:        return IndexedRangeMapReader.readAll(path);
+        }
+    }
+
+    // Memory maps the file when the filesystem supports it, otherwise reads it into the heap.
+    static ByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException("Range map is too large to map: " + path);
+            // The mapping stays valid after the channel is closed, and is released once the buffer is collected.
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (UnsupportedOperationException e) {
+            return ByteBuffer.wrap(Files.readAllBytes(path));
+        }
+    }
+
+    static String getEntryName(String filename) {
+        filename = filename.replace('\\', '/');
+        while (filename.startsWith("/"))
+            filename = filename.substring(1);
+        return filename + ".range";
+    }
+
+    static byte[] toBytes(RangeMap range) {
+        StringWriter text = new StringWriter();
+        PrintWriter writer = new PrintWriter(text);
+        range.write(writer, true);
+        writer.flush();
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.range;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import net.minecraftforge.srg2source.util.Util;
+
+/*
+ * Reads the per-file range map layouts written by DirectoryRangeMapWriter and ZipRangeMapWriter.
+ * Only the start line and meta of each file are read up front, the entries are parsed from the file when they are asked for.
+ */
+public class SplitRangeMapReader implements Closeable {
+    public static Map<String, RangeMap> readDirectory(Path root) throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(root)) {
+            files = stream.filter(Files::isRegularFile).filter(p -> p.getFileName().toString().endsWith(".range")).sorted().collect(Collectors.toList());
+        }
+
+        Map<String, RangeMap> ret = new HashMap<>();
+        for (Path file : files) {
+            RangeMap range = RangeMap.readLazy(() -> Files.newInputStream(file), file.toString());
+            ret.put(range.getFilename(), range);
+        }
+        return ret;
+    }
+
+    /*
+     * Reads every map in the zip and closes it, for callers that use all of them anyway.
+     * Use openZip to keep the zip open and only inflate the entries that are asked for.
+     */
+    public static Map<String, RangeMap> readZip(Path path) throws IOException {
+        try (SplitRangeMapReader reader = openZip(path)) {
+            Map<String, RangeMap> ret = new HashMap<>();
+            for (RangeMap range : reader.getRangeMaps().values())
+                ret.put(range.getFilename(), range.load());
+            return ret;
+        }
+    }
+
+    /*
+     * Entries are inflated from the zip every time they are loaded, so it has to stay open until the maps are done with.
+     */
+    public static SplitRangeMapReader openZip(Path path) throws IOException {
+        Map<String, RangeMap> ret = new HashMap<>();
+
+        if (path.getFileSystem() != FileSystems.getDefault()) {
+            // ZipFile needs a real file, so anything else is streamed, and has to be held in memory.
+            try (InputStream in = Files.newInputStream(path);
+                 ZipInputStream zin = new ZipInputStream(in)) {
+                ZipEntry entry;
+                while ((entry = zin.getNextEntry()) != null) {
+                    if (entry.isDirectory() || !entry.getName().endsWith(".range"))
+                        continue;
+                    byte[] data = Util.readStream(zin);
+                    add(ret, RangeMap.readLazy(() -> new ByteArrayInputStream(data), path + "!" + entry.getName()));
+                }
+            }
+            return new SplitRangeMapReader(null, ret);
+        }
+
+        ZipFile zip = new ZipFile(path.toFile());
+        try {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (entry.isDirectory() || !entry.getName().endsWith(".range"))
+                    continue;
+                add(ret, RangeMap.readLazy(() -> zip.getInputStream(entry), path + "!" + entry.getName()));
+            }
+        } catch (IOException | RuntimeException e) {
+            zip.close();
+            throw e;
+        }
+        return new SplitRangeMapReader(zip, ret);
+    }
+
+    private static void add(Map<String, RangeMap> ret, RangeMap range) {
+        ret.put(range.getFilename(), range);
+    }
+
+    private final ZipFile zip;
+    private final Map<String, RangeMap> maps;
+
+    private SplitRangeMapReader(ZipFile zip, Map<String, RangeMap> maps) {
+        this.zip = zip;
+        this.maps = maps;
+    }
+
+    public Map<String, RangeMap> getRangeMaps() {
+        return this.maps;
+    }
+
+    /*
+     * Maps that have not been loaded yet can't be read once this is closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.zip != null)
+            this.zip.close();
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.range;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Dedup table for the strings held by range entries. The same owners, names and descriptors are referenced from thousands of files,
+ * without this every entry would hold its own copy of 'net/minecraft/world/entity/Entity'.
+ * Unlike String.intern, everything is released with the pool, so scope it to the range maps built together, like one parse batch or one loaded file.
+ * A pool held for a whole run keeps every symbol it has seen alive until the end of the run.
+ * Safe to share between threads.
+ */
+public class SymbolPool {
+    private final Map<String, String> symbols = new ConcurrentHashMap<>();
+
+    /*
+     * Returns the pooled copy of value, adding it if this is the first time it has been seen.
+     */
+    public String get(String value) {
+        if (value == null)
+            return null;
+        String ret = symbols.get(value);
+        if (ret != null)
+            return ret;
+        ret = symbols.putIfAbsent(value, value);
+        return ret == null ? value : ret;
+    }
+
+    public int size() {
+        return symbols.size();
+    }
+}
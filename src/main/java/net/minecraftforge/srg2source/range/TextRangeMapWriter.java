@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.range;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+// The original single file format, every range map one after another in one text file.
+public class TextRangeMapWriter implements IRangeMapWriter {
+    private final PrintWriter out;
+    private final boolean pretty;
+
+    public TextRangeMapWriter(PrintWriter out) {
+        this(out, true);
+    }
+
+    public TextRangeMapWriter(PrintWriter out, boolean pretty) {
+        this.out = out;
+        this.pretty = pretty;
+    }
+
+    @Override
+    public void write(RangeMap range) throws IOException {
+        range.write(out, pretty);
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.flush();
+        out.close();
+    }
+}
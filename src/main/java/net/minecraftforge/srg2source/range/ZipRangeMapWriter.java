@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.range;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// Same layout as DirectoryRangeMapWriter, but every range map is a compressed entry in a single zip file.
+public class ZipRangeMapWriter implements IRangeMapWriter {
+    private final ZipOutputStream zout;
+
+    public ZipRangeMapWriter(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (!Files.exists(parent))
+            Files.createDirectories(parent);
+        this.zout = new ZipOutputStream(Files.newOutputStream(path));
+    }
+
+    public ZipRangeMapWriter(OutputStream out) {
+        this.zout = new ZipOutputStream(out);
+    }
+
+    @Override
+    public void write(RangeMap range) throws IOException {
+        zout.putNextEntry(new ZipEntry(RangeMapFormat.getEntryName(range.getFilename())));
+        zout.write(RangeMapFormat.toBytes(range));
+        zout.closeEntry();
+    }
+
+    @Override
+    public void close() throws IOException {
+        zout.close();
+    }
+}
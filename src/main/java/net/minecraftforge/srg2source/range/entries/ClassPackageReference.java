@@ -8,6 +8,7 @@ package net.minecraftforge.srg2source.range.entries;
 import java.util.List;
 import java.util.function.Consumer;
 
+import net.minecraftforge.srg2source.range.SymbolPool;
 import net.minecraftforge.srg2source.util.Util;
 
 public class ClassPackageReference extends RangeEntry {
@@ -15,11 +16,11 @@ public class ClassPackageReference extends RangeEntry {
         return new ClassPackageReference(start, length, text, className);
     }
 
-    static ClassPackageReference read(int spec, int start, int length, String text, String data) {
+    static ClassPackageReference read(SymbolPool pool, int spec, int start, int length, String text, String data) {
         List<String> pts = Util.unquote(data, 1);
         if (pts.size() != 1)
             throw new IllegalArgumentException("Invalid Class reference: " + data);
-        return new ClassPackageReference(start, length, text, pts.get(0));
+        return new ClassPackageReference(start, length, text, pool.get(pts.get(0)));
     }
 
     private final String className;
@@ -8,6 +8,7 @@ package net.minecraftforge.srg2source.range.entries;
 import java.util.List;
 import java.util.function.Consumer;
 
+import net.minecraftforge.srg2source.range.SymbolPool;
 import net.minecraftforge.srg2source.util.Util;
 
 public class ClassReference extends RangeEntry {
@@ -16,11 +17,11 @@ public class ClassReference extends RangeEntry {
         return new ClassReference(start, length, text, className, qualified);
     }
 
-    static ClassReference read(int spec, int start, int length, String text, String data) {
+    static ClassReference read(SymbolPool pool, int spec, int start, int length, String text, String data) {
         List<String> pts = Util.unquote(data, 2);
         if (pts.size() != 2)
             throw new IllegalArgumentException("Invalid Class reference: " + data);
-        return new ClassReference(start, length, text, pts.get(1), Boolean.parseBoolean(pts.get(0)));
+        return new ClassReference(start, length, text, pool.get(pts.get(1)), Boolean.parseBoolean(pts.get(0)));
     }
 
     private final String className;
@@ -8,6 +8,7 @@ package net.minecraftforge.srg2source.range.entries;
 import java.util.List;
 import java.util.function.Consumer;
 
+import net.minecraftforge.srg2source.range.SymbolPool;
 import net.minecraftforge.srg2source.util.Util;
 
 public class FieldLiteral extends RangeEntry {
@@ -15,11 +16,11 @@ public class FieldLiteral extends RangeEntry {
         return new FieldLiteral(start, length, text, owner, name);
     }
 
-    static FieldLiteral read(int spec, int start, int length, String text, String data) {
+    static FieldLiteral read(SymbolPool pool, int spec, int start, int length, String text, String data) {
         List<String> pts = Util.unquote(data, 2);
         if (pts.size() != 2)
             throw new IllegalArgumentException("Invalid Field Literal Missing Owner and name");
-        return new FieldLiteral(start, length, text, pts.get(0), pts.get(1));
+        return new FieldLiteral(start, length, text, pool.get(pts.get(0)), pool.get(pts.get(1)));
     }
 
     private final String owner;
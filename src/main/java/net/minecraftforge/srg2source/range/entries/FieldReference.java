@@ -7,15 +7,17 @@ package net.minecraftforge.srg2source.range.entries;
 
 import java.util.function.Consumer;
 
+import net.minecraftforge.srg2source.range.SymbolPool;
+
 public class FieldReference extends RangeEntry {
     public static FieldReference create(int start, int length, String text, String owner) {
         return new FieldReference(start, length, text, owner);
     }
 
-    static FieldReference read(int spec, int start, int length, String text, String data) {
+    static FieldReference read(SymbolPool pool, int spec, int start, int length, String text, String data) {
         if (data == null || data.isEmpty())
             throw new IllegalArgumentException("Invalid Field reference Missing Owner");
-        return new FieldReference(start, length, text, data);
+        return new FieldReference(start, length, text, pool.get(data));
     }
 
     private final String owner;
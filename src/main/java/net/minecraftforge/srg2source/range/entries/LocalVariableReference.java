@@ -8,6 +8,7 @@ package net.minecraftforge.srg2source.range.entries;
 import java.util.List;
 import java.util.function.Consumer;
 
+import net.minecraftforge.srg2source.range.SymbolPool;
 import net.minecraftforge.srg2source.util.Util;
 
 public class LocalVariableReference extends RangeEntry {
@@ -16,11 +17,11 @@ public class LocalVariableReference extends RangeEntry {
         return new LocalVariableReference(start, length, text, owner, name, desc, index, varType);
     }
 
-    static LocalVariableReference read(int spec, int start, int length, String text, String data) {
+    static LocalVariableReference read(SymbolPool pool, int spec, int start, int length, String text, String data) {
         List<String> pts = Util.unquote(data, 4);
         if (pts.size() != 5)
             throw new IllegalArgumentException("Invalid Local Varaible reference: " + data);
-        return new LocalVariableReference(start, length, text, pts.get(0), pts.get(1), pts.get(2), Integer.parseInt(pts.get(3)), pts.get(4));
+        return new LocalVariableReference(start, length, text, pool.get(pts.get(0)), pool.get(pts.get(1)), pool.get(pts.get(2)), Integer.parseInt(pts.get(3)), pool.get(pts.get(4)));
     }
 
     private final String owner;
@@ -8,6 +8,7 @@ package net.minecraftforge.srg2source.range.entries;
 import java.util.List;
 import java.util.function.Consumer;
 
+import net.minecraftforge.srg2source.range.SymbolPool;
 import net.minecraftforge.srg2source.util.Util;
 
 public class MethodLiteral extends RangeEntry {
@@ -15,11 +16,11 @@ public class MethodLiteral extends RangeEntry {
         return new MethodLiteral(start, length, text, owner, name, desc);
     }
 
-    static MethodLiteral read(int spec, int start, int length, String text, String data) {
+    static MethodLiteral read(SymbolPool pool, int spec, int start, int length, String text, String data) {
         List<String> pts = Util.unquote(data, 3);
         if (pts.size() != 3)
             throw new IllegalArgumentException("Invalid String Literal Missing Owner, name, or descriptor");
-        return new MethodLiteral(start, length, text, pts.get(0), pts.get(1), pts.get(2));
+        return new MethodLiteral(start, length, text, pool.get(pts.get(0)), pool.get(pts.get(1)), pool.get(pts.get(2)));
     }
 
     private final String owner;
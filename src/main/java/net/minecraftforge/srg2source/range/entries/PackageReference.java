@@ -7,12 +7,14 @@ package net.minecraftforge.srg2source.range.entries;
 
 import java.util.function.Consumer;
 
+import net.minecraftforge.srg2source.range.SymbolPool;
+
 public class PackageReference extends RangeEntry {
     public static PackageReference create(int start, int length, String name) {
         return new PackageReference(start, length, name);
     }
 
-    static PackageReference read(int spec, int start, int length, String text, String data) {
+    static PackageReference read(SymbolPool pool, int spec, int start, int length, String text, String data) {
         return new PackageReference(start, length, text);
     }
 
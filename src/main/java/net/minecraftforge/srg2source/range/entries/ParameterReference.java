@@ -8,6 +8,7 @@ package net.minecraftforge.srg2source.range.entries;
 import java.util.List;
 import java.util.function.Consumer;
 
+import net.minecraftforge.srg2source.range.SymbolPool;
 import net.minecraftforge.srg2source.util.Util;
 
 public class ParameterReference extends RangeEntry {
@@ -16,11 +17,11 @@ public class ParameterReference extends RangeEntry {
         return new ParameterReference(start, length, text, owner, name, desc, index);
     }
 
-    static ParameterReference read(int spec, int start, int length, String text, String data) {
+    static ParameterReference read(SymbolPool pool, int spec, int start, int length, String text, String data) {
         List<String> pts = Util.unquote(data, 3);
         if (pts.size() != 4)
             throw new IllegalArgumentException("Invalid Parameter reference: " + data);
-        return new ParameterReference(start, length, text, pts.get(0), pts.get(1), pts.get(2), Integer.parseInt(pts.get(3)));
+        return new ParameterReference(start, length, text, pool.get(pts.get(0)), pool.get(pts.get(1)), pool.get(pts.get(2)), Integer.parseInt(pts.get(3)));
     }
 
     private final String owner;
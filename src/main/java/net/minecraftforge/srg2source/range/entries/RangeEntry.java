@@ -10,6 +10,7 @@ import java.util.Locale;
 import java.util.function.Consumer;
 
 import net.minecraftforge.srg2source.range.IRange;
+import net.minecraftforge.srg2source.range.SymbolPool;
 import net.minecraftforge.srg2source.util.Util;
 
 public abstract class RangeEntry implements IRange {
@@ -30,22 +31,29 @@ public abstract class RangeEntry implements IRange {
         private Type(Factory<?> factory) {
             this.factory = factory;
         }
-        private RangeEntry read(int spec, String data) {
+        private RangeEntry read(SymbolPool pool, int spec, String data) {
             List<String> pts = Util.unquote(data, 3);
             if (pts.size() < 3)
                 throw new IllegalArgumentException("Invalid line, must contain atleast 3 parts: " + data);
-            return this.factory.create(spec, Integer.parseInt(pts.get(0)), Integer.parseInt(pts.get(1)), pts.get(2), pts.size() == 4 ? pts.get(3) : "");
+            return this.factory.create(pool, spec, Integer.parseInt(pts.get(0)), Integer.parseInt(pts.get(1)), pool.get(pts.get(2)), pts.size() == 4 ? pts.get(3) : "");
         }
     }
 
     public static RangeEntry read(int spec, String type, String data) {
+        return read(new SymbolPool(), spec, type, data);
+    }
+
+    /*
+     * Reads an entry with all of its strings deduplicated through the pool, use the same pool for every entry that will be kept together.
+     */
+    public static RangeEntry read(SymbolPool pool, int spec, String type, String data) {
         Type ret = null;
         try {
             ret = Type.valueOf(type.toUpperCase(Locale.ENGLISH));
         } catch (IllegalArgumentException e) {
             throw new IllegalArgumentException("Unknown Structure Type: " + type.toUpperCase(Locale.ENGLISH));
         }
-        return ret.read(spec, data);
+        return ret.read(pool, spec, data);
     }
 
     private final Type type;
@@ -104,6 +112,6 @@ public abstract class RangeEntry implements IRange {
 
     @FunctionalInterface
     interface Factory<T extends RangeEntry> {
-        T create(int spec, int start, int length, String text, String data);
+        T create(SymbolPool pool, int spec, int start, int length, String text, String data);
     }
 }
\ No newline at end of file
@@ -18,12 +18,26 @@ public class StructuralEntry implements IRange {
             String[] pts = data.split(" ");
             if (pts.length != 4)
                 throw new IllegalArgumentException("Missing required parts. Parts Length: " + pts.length);
-            return new StructuralEntry(me, Integer.parseInt(pts[0]), Integer.parseInt(pts[1]), pts[2], pts[2]);
+            return new StructuralEntry(me, Integer.parseInt(pts[0]), Integer.parseInt(pts[1]), pts[2], pts[3]);
         }),
         ENUM,
         ANNOTATION,
         INTERFACE,
-        RECORD;
+        RECORD,
+        // All the import declarations, from the first to the end of the last. Has no name.
+        IMPORTS((me, data) -> {
+            String[] pts = data.split(" ");
+            if (pts.length != 2)
+                throw new IllegalArgumentException("Missing required parts. Parts Length: " + pts.length);
+            return new StructuralEntry(me, Integer.parseInt(pts[0]), Integer.parseInt(pts[1]), null, null);
+        }),
+        // A single import declaration, the name is as written without the trailing .* and the descriptor is the flags: static and/or ondemand
+        IMPORT((me, data) -> {
+            String[] pts = data.split(" ", 4);
+            if (pts.length < 3)
+                throw new IllegalArgumentException("Missing required parts. Parts Length: " + pts.length);
+            return new StructuralEntry(me, Integer.parseInt(pts[0]), Integer.parseInt(pts[1]), pts[2], pts.length == 4 ? pts[3] : null);
+        });
 
         private BiFunction<Type, String, StructuralEntry> read;
         private Type(BiFunction<Type, String, StructuralEntry> read) {
@@ -67,6 +81,19 @@ public class StructuralEntry implements IRange {
         return new StructuralEntry(Type.METHOD, start, length, name, desc);
     }
 
+    public static StructuralEntry createImports(int start, int length) {
+        return new StructuralEntry(Type.IMPORTS, start, length, null, null);
+    }
+
+    public static StructuralEntry createImport(int start, int length, String name, boolean isStatic, boolean isOnDemand) {
+        String flags = isStatic ? (isOnDemand ? "static ondemand" : "static") : (isOnDemand ? "ondemand" : null);
+        return createImport(start, length, name, flags);
+    }
+
+    public static StructuralEntry createImport(int start, int length, String name, String flags) {
+        return new StructuralEntry(Type.IMPORT, start, length, name, flags);
+    }
+
     public static StructuralEntry read(int spec, String type, String data) {
         Type t = null;
         try {
@@ -120,10 +147,24 @@ public class StructuralEntry implements IRange {
         return this.desc;
     }
 
+    public boolean isImport() {
+        return this.type == Type.IMPORTS || this.type == Type.IMPORT;
+    }
+
+    public boolean isStatic() {
+        return this.type == Type.IMPORT && this.desc != null && this.desc.startsWith("static");
+    }
+
+    public boolean isOnDemand() {
+        return this.type == Type.IMPORT && this.desc != null && this.desc.endsWith("ondemand");
+    }
+
     public void write(Consumer<String> out) {
         String line = this.type.name().toLowerCase(Locale.ENGLISH) + "def "
-                + start + ' ' + length + ' ' + name;
-        if (this.type == Type.METHOD)
+                + start + ' ' + length;
+        if (this.type != Type.IMPORTS)
+            line += ' ' + name;
+        if (this.type == Type.METHOD || (this.type == Type.IMPORT && desc != null))
             line += ' ' + desc;
         out.accept(line);
     }
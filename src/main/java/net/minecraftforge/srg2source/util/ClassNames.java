@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Conversions between the three ways we write class names:
+ *   Internal: net/minecraft/world/Foo$Bar
+ *   Binary:   net.minecraft.world.Foo$Bar
+ *   Source:   net.minecraft.world.Foo.Bar
+ * These are called for every class reference when applying, so they scan chars instead of using regexes,
+ * return the input when nothing needs to change, and remember conversions that do allocate.
+ * The conversions are cached per instance, so whoever owns one decides how long the names live. Safe to share between threads.
+ */
+public class ClassNames {
+    // Bounded so a large run doesn't hold every name, it is just cleared when full since the working set is rebuilt quickly.
+    private static final int MAX_CACHE = 1 << 16;
+    private final Map<String, String> source = new ConcurrentHashMap<>();
+    private final Map<String, String> binary = new ConcurrentHashMap<>();
+
+    public String internalToSource(String name) {
+        if (name.indexOf('/') == -1 && name.indexOf('$') == -1)
+            return name;
+        return cached(source, name, '$');
+    }
+
+    public String internalToBinary(String name) {
+        if (name.indexOf('/') == -1)
+            return name;
+        return cached(binary, name, '\0');
+    }
+
+    private static String cached(Map<String, String> cache, String name, char inner) {
+        String ret = cache.get(name);
+        if (ret == null) {
+            char[] chars = name.toCharArray();
+            for (int x = 0; x < chars.length; x++) {
+                if (chars[x] == '/' || chars[x] == inner)
+                    chars[x] = '.';
+            }
+            ret = new String(chars);
+            if (cache.size() >= MAX_CACHE)
+                cache.clear();
+            cache.put(name, ret);
+        }
+        return ret;
+    }
+
+    /*
+     * Strips the numbers javac puts at the start of local and anonymous class names, Foo$1Bar becomes Foo$Bar.
+     * Parts that are nothing but numbers are anonymous classes, and are kept. Trailing $'s are dropped.
+     * Returns the input instance if there is nothing to strip.
+     */
+    public static String fixLocalClassName(String name) {
+        int first = name.indexOf('$');
+        if (first == -1)
+            return name;
+
+        int length = name.length();
+        while (length > 0 && name.charAt(length - 1) == '$')
+            length--;
+
+        StringBuilder ret = null;
+        int last = first; // Everything before this has been copied to ret, if we have started building one
+        int idx = first;
+        while (idx < length) {
+            // idx is at a '$', find the end of this part
+            int start = idx + 1;
+            int end = name.indexOf('$', start);
+            if (end == -1 || end > length)
+                end = length;
+
+            int strip = start;
+            while (strip < end && !Character.isJavaIdentifierStart(name.codePointAt(strip)))
+                strip += Character.charCount(name.codePointAt(strip));
+
+            if (strip != start && strip != end) {
+                if (ret == null)
+                    ret = new StringBuilder(length).append(name, 0, first);
+                ret.append(name, last, start);
+                last = strip;
+            }
+            idx = end;
+        }
+
+        if (ret == null)
+            return length == name.length() ? name : name.substring(0, length);
+
+        return ret.append(name, last, length).toString();
+    }
+}
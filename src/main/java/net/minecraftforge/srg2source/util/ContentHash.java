@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.CRC32C;
+
+/*
+ * Hashes used to identify the content of source files in range maps and caches.
+ * Everything works on the raw bytes, so there is no need to decode and re-encode the file just to hash it.
+ */
+public enum ContentHash {
+    // Compatible with every range map written so far.
+    MD5 {
+        @Override
+        Hasher create() {
+            MessageDigest md;
+            try {
+                md = MessageDigest.getInstance("MD5");
+            } catch (NoSuchAlgorithmException e) {
+                throw new RuntimeException(e);
+            }
+            return new Hasher() {
+                @Override
+                public void update(byte[] data, int offset, int length) {
+                    md.update(data, offset, length);
+                }
+
+                @Override
+                public String finish() {
+                    return Util.hex(md.digest());
+                }
+            };
+        }
+    },
+    // Not cryptographic, but hardware accelerated on most CPUs. The length is included to make collisions between edits of the same file less likely.
+    CRC32C {
+        @Override
+        Hasher create() {
+            CRC32C crc = new CRC32C();
+            return new Hasher() {
+                private long length = 0;
+
+                @Override
+                public void update(byte[] data, int offset, int length) {
+                    crc.update(data, offset, length);
+                    this.length += length;
+                }
+
+                @Override
+                public String finish() {
+                    byte[] ret = new byte[12];
+                    long value = crc.getValue();
+                    for (int x = 0; x < 4; x++)
+                        ret[x] = (byte)(value >>> (24 - x * 8));
+                    for (int x = 0; x < 8; x++)
+                        ret[4 + x] = (byte)(length >>> (56 - x * 8));
+                    return Util.hex(ret);
+                }
+            };
+        }
+    };
+
+    abstract Hasher create();
+
+    public String hash(byte[] data) {
+        return hash(data, 0, data.length);
+    }
+
+    public String hash(byte[] data, int offset, int length) {
+        Hasher hasher = create();
+        hasher.update(data, offset, length);
+        return hasher.finish();
+    }
+
+    /*
+     * Hashes everything left in the stream, the stream is not closed.
+     */
+    public String hash(InputStream stream) throws IOException {
+        Hasher hasher = create();
+        byte[] buf = new byte[0x2000];
+        int len;
+        while ((len = stream.read(buf)) != -1)
+            hasher.update(buf, 0, len);
+        return hasher.finish();
+    }
+
+    interface Hasher {
+        void update(byte[] data, int offset, int length);
+        String finish();
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.util;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+import net.minecraftforge.srg2source.range.RangeMap;
+import net.minecraftforge.srg2source.range.entries.RangeEntry;
+
+/*
+ * Phase timers and counters for a single extract or apply run, so we can see where the time goes on large trees.
+ * Everything is safe to update from the worker threads. Phase times are summed across threads,
+ * so with more than one thread they can add up to more than the 'total' wall time.
+ *
+ * Timing a phase doesn't allocate, it is just a pair of nanoTime calls:
+ *   long start = metrics.start();
+ *   ...
+ *   start = metrics.stop("read", start);
+ *   ...
+ *   metrics.stop("hash", start);
+ *
+ * It also keeps the slowest files, with how much they allocated, so pathological sources like huge generated classes stand out:
+ *   long start = metrics.start();
+ *   long allocated = metrics.allocated();
+ *   ...
+ *   metrics.file(path, start, allocated);
+ */
+public class Metrics {
+    private static final com.sun.management.ThreadMXBean THREADS = getThreadBean();
+
+    private static final RangeEntry.Type[] TYPES = RangeEntry.Type.values();
+    private static final String[] ENTRY_COUNTERS = new String[TYPES.length];
+    static {
+        for (RangeEntry.Type type : TYPES)
+            ENTRY_COUNTERS[type.ordinal()] = "entries." + type.name().toLowerCase(Locale.ENGLISH);
+    }
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    // Reports list things in the order they were first seen, which is the order the phases run in.
+    private final List<String> timerOrder = new CopyOnWriteArrayList<>();
+    private final List<String> counterOrder = new CopyOnWriteArrayList<>();
+    // Min heap on time, so the fastest of the slow files is the one that gets bumped.
+    private final PriorityQueue<SlowFile> slowest = new PriorityQueue<>(Comparator.comparingLong(SlowFile::getNanos));
+    private int slowestLimit = 10;
+
+    private static com.sun.management.ThreadMXBean getThreadBean() {
+        try {
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean && bean.isThreadAllocatedMemorySupported()) {
+                if (!bean.isThreadAllocatedMemoryEnabled())
+                    bean.setThreadAllocatedMemoryEnabled(true);
+                return bean;
+            }
+        } catch (LinkageError | UnsupportedOperationException | SecurityException e) {
+            // Not a HotSpot VM, or jdk.management isn't there, we just won't report allocations.
+        }
+        return null;
+    }
+
+    /*
+     * How many of the slowest files to keep, zero turns it off.
+     */
+    public void setSlowestLimit(int value) {
+        synchronized (slowest) {
+            this.slowestLimit = Math.max(0, value);
+            while (slowest.size() > slowestLimit)
+                slowest.poll();
+        }
+    }
+
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /*
+     * Adds the time since start to the phase, and returns now so the next phase can start from it.
+     */
+    public long stop(String phase, long start) {
+        long now = System.nanoTime();
+        time(phase, now - start);
+        return now;
+    }
+
+    public void time(String phase, long nanos) {
+        Timer timer = timers.get(phase);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(phase, k -> {
+                timerOrder.add(k);
+                return new Timer();
+            });
+        }
+        timer.nanos.add(nanos);
+        timer.count.increment();
+    }
+
+    /*
+     * Bytes allocated by the current thread so far, or -1 if the VM can't tell us.
+     */
+    public long allocated() {
+        return THREADS == null ? -1 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    /*
+     * Records one file, from values taken with start() and allocated() on the same thread.
+     */
+    public void file(String path, long start, long allocated) {
+        long nanos = System.nanoTime() - start;
+        long bytes = allocated < 0 ? -1 : allocated() - allocated;
+        synchronized (slowest) {
+            if (slowest.size() < slowestLimit)
+                slowest.add(new SlowFile(path, nanos, bytes));
+            else if (slowestLimit > 0 && slowest.peek().nanos < nanos) {
+                slowest.poll();
+                slowest.add(new SlowFile(path, nanos, bytes));
+            }
+        }
+    }
+
+    /*
+     * The slowest files, slowest first.
+     */
+    public List<SlowFile> getSlowest() {
+        List<SlowFile> ret;
+        synchronized (slowest) {
+            ret = new ArrayList<>(slowest);
+        }
+        ret.sort(Comparator.comparingLong(SlowFile::getNanos).reversed());
+        return ret;
+    }
+
+    public void increment(String counter) {
+        add(counter, 1);
+    }
+
+    public void add(String counter, long value) {
+        LongAdder adder = counters.get(counter);
+        if (adder == null) {
+            adder = counters.computeIfAbsent(counter, k -> {
+                counterOrder.add(k);
+                return new LongAdder();
+            });
+        }
+        adder.add(value);
+    }
+
+    /*
+     * Counts the entries in the range map by type, as 'entries.class', 'entries.method', etc.
+     */
+    public void addEntries(RangeMap range) {
+        int[] counts = new int[TYPES.length];
+        for (RangeEntry entry : range.getEntries())
+            counts[entry.getType().ordinal()]++;
+        for (int x = 0; x < counts.length; x++) {
+            if (counts[x] != 0)
+                add(ENTRY_COUNTERS[x], counts[x]);
+        }
+    }
+
+    public long getNanos(String phase) {
+        Timer timer = timers.get(phase);
+        return timer == null ? 0 : timer.nanos.sum();
+    }
+
+    /*
+     * How many times the phase was timed, usually once per file.
+     */
+    public long getCount(String phase) {
+        Timer timer = timers.get(phase);
+        return timer == null ? 0 : timer.count.sum();
+    }
+
+    public long getCounter(String counter) {
+        LongAdder adder = counters.get(counter);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    /*
+     * Phase name to total nanoseconds, in the order the phases first ran.
+     */
+    public Map<String, Long> getTimes() {
+        Map<String, Long> ret = new LinkedHashMap<>();
+        for (String phase : timerOrder)
+            ret.put(phase, getNanos(phase));
+        return ret;
+    }
+
+    public Map<String, Long> getCounters() {
+        Map<String, Long> ret = new LinkedHashMap<>();
+        for (String counter : counterOrder)
+            ret.put(counter, getCounter(counter));
+        return ret;
+    }
+
+    /*
+     * One line for the log: read 12ms, hash 3ms, ...
+     */
+    public String getSummary() {
+        StringBuilder buf = new StringBuilder();
+        for (String phase : timerOrder) {
+            if (buf.length() > 0)
+                buf.append(", ");
+            buf.append(phase).append(' ').append(getNanos(phase) / 1_000_000).append("ms");
+        }
+        return buf.toString();
+    }
+
+    public String toJson() {
+        StringBuilder buf = new StringBuilder();
+        buf.append("{\n  \"phases\": {");
+        String sep = "\n";
+        for (String phase : timerOrder) {
+            buf.append(sep).append("    ");
+            quote(buf, phase).append(": { \"nanos\": ").append(getNanos(phase)).append(", \"count\": ").append(getCount(phase)).append(" }");
+            sep = ",\n";
+        }
+        buf.append(timerOrder.isEmpty() ? "" : "\n  ").append("},\n  \"counters\": {");
+        sep = "\n";
+        for (String counter : counterOrder) {
+            buf.append(sep).append("    ");
+            quote(buf, counter).append(": ").append(getCounter(counter));
+            sep = ",\n";
+        }
+        buf.append(counterOrder.isEmpty() ? "" : "\n  ").append("},\n  \"slowest\": [");
+        sep = "\n";
+        List<SlowFile> files = getSlowest();
+        for (SlowFile file : files) {
+            buf.append(sep).append("    { \"file\": ");
+            quote(buf, file.path).append(", \"nanos\": ").append(file.nanos).append(", \"allocated\": ").append(file.allocated).append(" }");
+            sep = ",\n";
+        }
+        buf.append(files.isEmpty() ? "" : "\n  ").append("]\n}\n");
+        return buf.toString();
+    }
+
+    /*
+     * Lines for the end of the log, one per slow file: 1234ms 56MB path
+     */
+    public List<String> getSlowestSummary() {
+        List<String> ret = new ArrayList<>();
+        for (SlowFile file : getSlowest())
+            ret.add(String.format(Locale.ENGLISH, "%6dms %6s %s", file.nanos / 1_000_000, file.allocated < 0 ? "?" : (file.allocated >> 20) + "MB", file.path));
+        return ret;
+    }
+
+    public void writeJson(Path path) throws IOException {
+        if (path.getParent() != null)
+            Files.createDirectories(path.getParent());
+        Files.write(path, toJson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static StringBuilder quote(StringBuilder buf, String value) {
+        buf.append('"');
+        for (int x = 0; x < value.length(); x++) {
+            char c = value.charAt(x);
+            if (c == '"' || c == '\\')
+                buf.append('\\').append(c);
+            else if (c < 0x20)
+                buf.append(String.format("\\u%04x", (int)c));
+            else
+                buf.append(c);
+        }
+        return buf.append('"');
+    }
+
+    public static class SlowFile {
+        private final String path;
+        private final long nanos;
+        private final long allocated;
+
+        private SlowFile(String path, long nanos, long allocated) {
+            this.path = path;
+            this.nanos = nanos;
+            this.allocated = allocated;
+        }
+
+        public String getPath() {
+            return this.path;
+        }
+
+        public long getNanos() {
+            return this.nanos;
+        }
+
+        /*
+         * Bytes allocated on the processing thread, or -1 if the VM doesn't track it.
+         */
+        public long getAllocated() {
+            return this.allocated;
+        }
+    }
+
+    private static class Timer {
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder count = new LongAdder();
+    }
+}
@@ -12,14 +12,10 @@ import java.io.OutputStream;
 import java.nio.charset.Charset;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Formatter;
 import java.util.List;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 import net.minecraftforge.srg2source.ConsoleTool;
 
@@ -62,17 +58,17 @@ public class Util {
     }
 
     public static String md5(String data, Charset encoding) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("MD5");
-            md.update(data.getBytes(encoding));
-            return hex(md.digest());
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
-        }
+        return ContentHash.MD5.hash(data.getBytes(encoding));
     }
 
-    private static String hex(byte[] data) {
-        return IntStream.range(0, data.length).collect(StringBuilder::new, (sb,i)->new Formatter(sb).format("%02x", data[i] & 0xFF), StringBuilder::append).toString();
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    public static String hex(byte[] data) {
+        char[] ret = new char[data.length * 2];
+        for (int x = 0; x < data.length; x++) {
+            ret[x * 2]     = HEX[(data[x] >> 4) & 0xF];
+            ret[x * 2 + 1] = HEX[data[x] & 0xF];
+        }
+        return new String(ret);
     }
 
     /*
@@ -6,20 +6,57 @@
 package net.minecraftforge.srg2source.util.io;
 
 import java.io.PrintStream;
+import java.util.function.Supplier;
 
 @SuppressWarnings("rawtypes")
 public abstract class ConfLogger<T extends ConfLogger> {
+    /*
+     * DEBUG logs every file and every rename, INFO only progress and summaries, and QUIET nothing but errors.
+     * Anything below the current level is never formatted, so per entry messages should check isLogging first, or pass a Supplier.
+     */
+    public enum Level {
+        DEBUG,
+        INFO,
+        QUIET
+    }
+
     private PrintStream logger = System.out;
     private PrintStream errorLogger = System.err;
+    private Level level = Level.DEBUG;
 
     protected void log(String s) {
-        logger.println(s);
+        if (isLogging(Level.INFO))
+            logger.println(s);
+    }
+
+    protected void log(Level level, String s) {
+        if (isLogging(level))
+            log(s);
+    }
+
+    protected void log(Level level, Supplier<String> message) {
+        if (isLogging(level))
+            log(message.get());
     }
 
     public void error(String s) {
         errorLogger.println(s);
     }
 
+    public boolean isLogging(Level value) {
+        return value != Level.QUIET && value.compareTo(this.level) >= 0;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T setLevel(Level value) {
+        this.level = value;
+        return (T)this;
+    }
+
     public PrintStream getLogger() {
         return logger;
     }
@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.util.io;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import org.jetbrains.annotations.Nullable;
+
+import net.minecraftforge.srg2source.api.OutputSupplier;
+
+/*
+ * Zip output that compresses entries on worker threads, and appends them to the file in the order their streams were closed.
+ * ZipOutputStream can not take already compressed data, so the local headers, central directory and end record are written by hand.
+ * Each entry is held in memory until it has been written, which is bounded to a small window past the oldest entry still compressing.
+ * Past 65535 entries or 4GB the Zip64 records are added, the same as ZipOutputStream does.
+ */
+public class ParallelZipOutputSupplier implements OutputSupplier {
+    public static final int STORED = Deflater.NO_COMPRESSION;
+
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int END_HEADER = 0x06054b50;
+    private static final int ZIP64_END_HEADER = 0x06064b50;
+    private static final int ZIP64_LOCATOR = 0x07064b50;
+    private static final int ZIP64_EXTRA = 0x0001;
+    private static final int VERSION = 20;
+    private static final int VERSION_ZIP64 = 45;
+    private static final int FLAG_UTF8 = 0x0800;
+    private static final int METHOD_STORED = 0;
+    private static final int METHOD_DEFLATED = 8;
+
+    private final OutputStream out;
+    private final int level;
+    private final int threads;
+    private final int window;
+    private final int dosTime;
+    private ExecutorService executor = null; // Started with the first entry, so an output that is never used doesn't leave threads behind.
+    private final Deque<Future<Entry>> pending = new ArrayDeque<>();
+    private final Set<String> names = new HashSet<>();
+    private final ByteArrayOutputStream central = new ByteArrayOutputStream();
+    private long position = 0;
+    private int count = 0;
+    private boolean closed = false;
+
+    /*
+     * Level is a Deflater level, STORED/0 writes entries uncompressed.
+     */
+    public ParallelZipOutputSupplier(Path out, int level, int threads) throws IOException {
+        Path parent = out.toAbsolutePath().getParent();
+        if (parent != null && !Files.exists(parent))
+            Files.createDirectories(parent);
+        this.out = new BufferedOutputStream(Files.newOutputStream(out));
+        this.level = level;
+        this.threads = Math.max(1, threads);
+        this.window = this.threads * 2;
+        this.dosTime = toDosTime(LocalDateTime.now());
+    }
+
+    private static int toDosTime(LocalDateTime time) {
+        if (time.getYear() < 1980)
+            return (1 << 21) | (1 << 16);
+        return (time.getYear() - 1980) << 25 | time.getMonthValue() << 21 | time.getDayOfMonth() << 16 |
+               time.getHour() << 11 | time.getMinute() << 5 | time.getSecond() >> 1;
+    }
+
+    @Override
+    @Nullable
+    public OutputStream getOutput(String relPath) {
+        if (closed || !names.add(relPath))
+            return null;
+        return new EntryOutStream(relPath);
+    }
+
+    private void submit(String name, byte[] data) throws IOException {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(threads, r -> {
+                Thread ret = new Thread(r, "S2S Zip Compressor");
+                ret.setDaemon(true); // Nothing left to compress should ever keep the JVM alive
+                return ret;
+            });
+        }
+        pending.add(executor.submit(() -> compress(name, data)));
+
+        // Write everything that is already done, and block on the oldest if we are too far ahead.
+        while (!pending.isEmpty() && (pending.size() > window || pending.peekFirst().isDone()))
+            write(get(pending.removeFirst()));
+    }
+
+    private Entry compress(String name, byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+
+        if (level == STORED)
+            return new Entry(name, METHOD_STORED, crc.getValue(), data.length, data);
+
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream buf = new ByteArrayOutputStream(Math.max(64, data.length / 2));
+            byte[] tmp = new byte[0x2000];
+            while (!deflater.finished()) {
+                int len = deflater.deflate(tmp);
+                buf.write(tmp, 0, len);
+            }
+            return new Entry(name, METHOD_DEFLATED, crc.getValue(), data.length, buf.toByteArray());
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static Entry get(Future<Entry> future) throws IOException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to compress zip entry", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+
+    private void write(Entry entry) throws IOException {
+        count++;
+        byte[] name = entry.name.getBytes(StandardCharsets.UTF_8);
+        // Entries are whole byte arrays so their sizes always fit, only the offset can need the Zip64 extra.
+        boolean zip64 = position >= 0xFFFFFFFFL;
+
+        ByteBuffer header = ByteBuffer.allocate(30 + name.length).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(LOCAL_HEADER);
+        header.putShort((short)VERSION);
+        header.putShort((short)FLAG_UTF8);
+        header.putShort((short)entry.method);
+        header.putInt(dosTime);
+        header.putInt((int)entry.crc);
+        header.putInt(entry.data.length);
+        header.putInt(entry.size);
+        header.putShort((short)name.length);
+        header.putShort((short)0);
+        header.put(name);
+
+        ByteBuffer dir = ByteBuffer.allocate(46 + name.length + (zip64 ? 12 : 0)).order(ByteOrder.LITTLE_ENDIAN);
+        dir.putInt(CENTRAL_HEADER);
+        dir.putShort((short)(zip64 ? VERSION_ZIP64 : VERSION));
+        dir.putShort((short)(zip64 ? VERSION_ZIP64 : VERSION));
+        dir.putShort((short)FLAG_UTF8);
+        dir.putShort((short)entry.method);
+        dir.putInt(dosTime);
+        dir.putInt((int)entry.crc);
+        dir.putInt(entry.data.length);
+        dir.putInt(entry.size);
+        dir.putShort((short)name.length);
+        dir.putShort((short)(zip64 ? 12 : 0)); // Extra
+        dir.putShort((short)0); // Comment
+        dir.putShort((short)0); // Disk
+        dir.putShort((short)0); // Internal attributes
+        dir.putInt(0);          // External attributes
+        dir.putInt(zip64 ? 0xFFFFFFFF : (int)position);
+        dir.put(name);
+        if (zip64) {
+            dir.putShort((short)ZIP64_EXTRA);
+            dir.putShort((short)8);
+            dir.putLong(position);
+        }
+        central.write(dir.array());
+
+        out.write(header.array());
+        out.write(entry.data);
+        position += header.capacity() + entry.data.length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+
+        try {
+            while (!pending.isEmpty())
+                write(get(pending.removeFirst()));
+
+            long offset = position;
+            long size = central.size();
+            central.writeTo(out);
+            position += size;
+
+            if (count >= 0xFFFF || offset >= 0xFFFFFFFFL || size >= 0xFFFFFFFFL) {
+                ByteBuffer end64 = ByteBuffer.allocate(56 + 20).order(ByteOrder.LITTLE_ENDIAN);
+                end64.putInt(ZIP64_END_HEADER);
+                end64.putLong(56 - 12); // Size of the rest of the record
+                end64.putShort((short)VERSION_ZIP64);
+                end64.putShort((short)VERSION_ZIP64);
+                end64.putInt(0);        // Disk
+                end64.putInt(0);        // Central directory disk
+                end64.putLong(count);
+                end64.putLong(count);
+                end64.putLong(size);
+                end64.putLong(offset);
+
+                end64.putInt(ZIP64_LOCATOR);
+                end64.putInt(0);        // Disk with the Zip64 end record
+                end64.putLong(position);
+                end64.putInt(1);        // Total disks
+                out.write(end64.array());
+            }
+
+            ByteBuffer end = ByteBuffer.allocate(22).order(ByteOrder.LITTLE_ENDIAN);
+            end.putInt(END_HEADER);
+            end.putShort((short)0); // Disk
+            end.putShort((short)0); // Central directory disk
+            end.putShort((short)Math.min(count, 0xFFFF));
+            end.putShort((short)Math.min(count, 0xFFFF));
+            end.putInt((int)Math.min(size, 0xFFFFFFFFL));
+            end.putInt((int)Math.min(offset, 0xFFFFFFFFL));
+            end.putShort((short)0); // Comment
+            out.write(end.array());
+        } finally {
+            if (executor != null)
+                executor.shutdownNow();
+            out.close();
+        }
+    }
+
+    private static class Entry {
+        private final String name;
+        private final int method;
+        private final long crc;
+        private final int size;
+        private final byte[] data;
+
+        private Entry(String name, int method, long crc, int size, byte[] data) {
+            this.name = name;
+            this.method = method;
+            this.crc = crc;
+            this.size = size;
+            this.data = data;
+        }
+    }
+
+    private class EntryOutStream extends ByteArrayOutputStream {
+        private final String name;
+        private boolean done = false;
+
+        private EntryOutStream(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (done)
+                return;
+            done = true;
+            submit(name, toByteArray());
+        }
+    }
+}
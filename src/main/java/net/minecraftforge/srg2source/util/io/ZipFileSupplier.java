@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.util.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.jetbrains.annotations.Nullable;
+
+import net.minecraftforge.srg2source.api.InputSupplier;
+import net.minecraftforge.srg2source.util.Util;
+
+/*
+ * Random access version of ZipInputSupplier, entries are only read from the zip when they are asked for.
+ * Only the central directory is held in memory, unless a prefetch filter is given, then matching entries are read up front.
+ * ZipFile needs a real file, so this only works for paths on the default file system, use ZipInputSupplier for anything else.
+ */
+public class ZipFileSupplier implements InputSupplier {
+    public static ZipFileSupplier create(Path path, @Nullable Charset encoding) throws IOException {
+        return create(path, encoding, null);
+    }
+
+    /*
+     * Prefetch is matched against the end of entry names the same way as gatherAll, so passing the extension you will be gathering
+     * means they are only inflated once, no matter how many times they are read.
+     */
+    public static ZipFileSupplier create(Path path, @Nullable Charset encoding, @Nullable String prefetch) throws IOException {
+        ZipFile zip = new ZipFile(path.toFile());
+        try {
+            List<String> names = new ArrayList<>();
+            Map<String, byte[]> cache = new HashMap<>();
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (entry.isDirectory())
+                    continue;
+                names.add(entry.getName());
+                if (prefetch != null && entry.getName().endsWith(prefetch)) {
+                    try (InputStream in = zip.getInputStream(entry)) {
+                        cache.put(entry.getName(), Util.readStream(in));
+                    }
+                }
+            }
+            return new ZipFileSupplier(path.toString(), zip, names, cache, encoding);
+        } catch (IOException | RuntimeException e) {
+            zip.close();
+            throw e;
+        }
+    }
+
+    private final String root;
+    private final ZipFile zip;
+    private final List<String> names;
+    private final Map<String, byte[]> cache;
+    private final Charset encoding;
+    private volatile boolean closed = false;
+
+    private ZipFileSupplier(String root, ZipFile zip, List<String> names, Map<String, byte[]> cache, @Nullable Charset encoding) {
+        this.root = root;
+        this.zip = zip;
+        this.names = names;
+        this.cache = cache;
+        this.encoding = encoding;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        cache.clear();
+        zip.close();
+    }
+
+    @Override
+    @Nullable
+    public InputStream getInput(String relPath) {
+        if (closed)
+            return null;
+
+        byte[] data = cache.get(relPath);
+        if (data != null)
+            return new ByteArrayInputStream(data);
+
+        try {
+            ZipEntry entry = zip.getEntry(relPath);
+            return entry == null ? null : zip.getInputStream(entry);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    @Override
+    public List<String> gatherAll(String endFilter) {
+        List<String> out = new ArrayList<>();
+
+        for (String key : names)
+            if (key.endsWith(endFilter))
+                out.add(key);
+
+        return out;
+    }
+
+    @Override
+    public String getRoot(String resource) {
+        return root;
+    }
+
+    @Override
+    public Charset getEncoding(String resource) {
+        return encoding;
+    }
+}
@@ -68,6 +68,11 @@ public class ZipOutputSupplier implements OutputSupplier {
             zout.write(paramInt);
         }
 
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            zout.write(b, off, len);
+        }
+
         @Override
         public void close() throws IOException {
             zout.closeEntry();
@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.apply;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.minecraftforge.srgutils.IMappingFile;
+
+// In the apply package as MappingIndex is package private, it has no public surface of its own.
+public class MappingIndexTests {
+    private static final String[] DESCS = { "()V", "(I)V", "(ILjava/lang/String;)I" };
+
+    @TempDir Path temp;
+
+    private static IMappingFile srg(String... lines) throws IOException {
+        return IMappingFile.load(new ByteArrayInputStream(("tsrg2 left right\n" + String.join("\n", lines) + '\n').getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private Map<String, ExceptorClass> exc(String... lines) throws IOException {
+        Path path = Files.createTempFile(temp, "mappings", ".exc");
+        Files.write(path, List.of(lines));
+        return ExceptorClass.create(path, StandardCharsets.UTF_8, new HashMap<>());
+    }
+
+    @Test
+    public void testPrecedence() throws IOException {
+        IMappingFile first = srg(
+            "a/A a/First",
+            "\tf first_f",
+            "\tm ()V first_m",
+            "\t\t0 p first_p"
+        );
+        IMappingFile second = srg(
+            "a/A a/Second",
+            "\tf second_f",
+            "\tg second_g",
+            "\tm ()V second_m",
+            "\t\t0 p second_p",
+            "\t\t1 q second_q",
+            "\tm (I)V second_m2",
+            "\tn ()V second_n",
+            "a/B a/Other"
+        );
+        Map<String, ExceptorClass> excs = exc(
+            "a/A.m()V=|exc_p",
+            "a/C.m()V=java/io/IOException"
+        );
+        MappingIndex index = MappingIndex.create(List.of(first, second), excs);
+
+        // The first srg to know something wins, later ones only fill in what it doesn't know
+        Assertions.assertEquals("a/First", index.mapClass("a/A"));
+        Assertions.assertEquals("a/Other", index.mapClass("a/B"));
+        Assertions.assertEquals("a/Missing", index.mapClass("a/Missing"));
+        Assertions.assertEquals("first_f", index.mapField("a/A", "f"));
+        Assertions.assertEquals("second_g", index.mapField("a/A", "g"));
+        Assertions.assertEquals("h", index.mapField("a/A", "h"));
+        Assertions.assertEquals("first_m", index.mapMethod("a/A", "m", "()V"));
+        Assertions.assertEquals("second_n", index.mapMethod("a/A", "n", "()V"));
+        Assertions.assertEquals("second_m2", index.mapMethod("a/A", "m", "(I)V"));
+        Assertions.assertNull(index.mapMethod("a/A", "m", "(J)V"));
+
+        // Exc parameters win over every srg, past the end of the exc list falls back to the srgs
+        Assertions.assertEquals("exc_p", index.mapParam("a/A", "m", "()V", 0));
+        Assertions.assertEquals("second_q", index.mapParam("a/A", "m", "()V", 1));
+        Assertions.assertNull(index.mapParam("a/A", "m", "()V", 2));
+        // Exc classes with only exceptions have no parameters to give
+        Assertions.assertNull(index.mapParam("a/C", "m", "()V", 0));
+
+        Assertions.assertNull(index.mapMethodName("a/A", "m"), "Overloads are mapped to different names");
+        Assertions.assertEquals("second_n", index.mapMethodName("a/A", "n"));
+    }
+
+    // Compares against the per file loops RangeApplier used before the index, over random overlapping mappings
+    @Test
+    public void testMatchesLegacy() throws IOException {
+        Random rand = new Random(42);
+        for (int run = 0; run < 20; run++) {
+            List<IMappingFile> srgs = new ArrayList<>();
+            int files = 1 + rand.nextInt(3);
+            for (int x = 0; x < files; x++)
+                srgs.add(randomSrg(rand, x));
+            Map<String, ExceptorClass> excs = randomExc(rand);
+
+            MappingIndex index = MappingIndex.create(srgs, excs);
+            for (int cls = 0; cls < 8; cls++) {
+                String owner = "c/C" + cls;
+                Assertions.assertEquals(legacyClass(srgs, owner), index.mapClass(owner), owner);
+                for (int fld = 0; fld < 6; fld++) {
+                    String name = "f" + fld;
+                    Assertions.assertEquals(legacyField(srgs, owner, name), index.mapField(owner, name), owner + '.' + name);
+                }
+                for (int mtd = 0; mtd < 5; mtd++) {
+                    for (String desc : DESCS) {
+                        String name = "m" + mtd;
+                        Assertions.assertEquals(legacyMethod(srgs, owner, name, desc), index.mapMethod(owner, name, desc), owner + '.' + name + desc);
+                        for (int param = 0; param < 4; param++) {
+                            Assertions.assertEquals(legacyParam(srgs, excs, owner, name, desc, param), index.mapParam(owner, name, desc, param),
+                                owner + '.' + name + desc + " #" + param);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static IMappingFile randomSrg(Random rand, int file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int cls = 0; cls < 8; cls++) {
+            if (rand.nextInt(3) == 0)
+                continue;
+            lines.add("c/C" + cls + ' ' + (rand.nextInt(4) == 0 ? "c/C" + cls : "d/D" + cls + '_' + file));
+            for (int fld = 0; fld < 6; fld++) {
+                if (rand.nextBoolean())
+                    lines.add("\tf" + fld + ' ' + (rand.nextInt(4) == 0 ? "f" + fld : "field_" + fld + '_' + file));
+            }
+            for (int mtd = 0; mtd < 5; mtd++) {
+                for (String desc : DESCS) {
+                    if (rand.nextBoolean())
+                        continue;
+                    lines.add("\tm" + mtd + ' ' + desc + ' ' + (rand.nextInt(4) == 0 ? "m" + mtd : "func_" + mtd + '_' + file));
+                    for (int param = 0; param < 4; param++) {
+                        if (rand.nextBoolean())
+                            lines.add("\t\t" + param + " p" + param + " par_" + param + '_' + file);
+                    }
+                }
+            }
+        }
+        return srg(lines.toArray(new String[lines.size()]));
+    }
+
+    private Map<String, ExceptorClass> randomExc(Random rand) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int cls = 0; cls < 8; cls++) {
+            for (int mtd = 0; mtd < 5; mtd++) {
+                for (String desc : DESCS) {
+                    if (rand.nextInt(4) != 0)
+                        continue;
+                    List<String> args = new ArrayList<>();
+                    int count = rand.nextInt(4);
+                    for (int param = 0; param < count; param++)
+                        args.add("exc_" + param);
+                    String excs = rand.nextBoolean() ? "java/io/IOException" : "";
+                    if (args.isEmpty() && excs.isEmpty())
+                        continue;
+                    lines.add("c/C" + cls + ".m" + mtd + desc + '=' + excs + (args.isEmpty() ? "" : '|' + String.join(",", args)));
+                }
+            }
+        }
+        return exc(lines.toArray(new String[lines.size()]));
+    }
+
+    private static String legacyClass(List<IMappingFile> srgs, String name) {
+        for (IMappingFile srg : srgs) {
+            IMappingFile.IClass cls = srg.getClass(name);
+            if (cls != null)
+                return cls.getMapped();
+        }
+        return name;
+    }
+
+    private static String legacyField(List<IMappingFile> srgs, String owner, String name) {
+        for (IMappingFile srg : srgs) {
+            IMappingFile.IClass cls = srg.getClass(owner);
+            if (cls != null) {
+                String newName = cls.remapField(name);
+                if (newName != name)
+                    return newName;
+            }
+        }
+        return name;
+    }
+
+    private static String legacyMethod(List<IMappingFile> srgs, String owner, String name, String desc) {
+        for (IMappingFile srg : srgs) {
+            IMappingFile.IClass cls = srg.getClass(owner);
+            if (cls != null) {
+                String newName = cls.remapMethod(name, desc);
+                if (newName != name)
+                    return newName;
+            }
+        }
+        return null;
+    }
+
+    private static String legacyParam(List<IMappingFile> srgs, Map<String, ExceptorClass> excs, String owner, String name, String desc, int index) {
+        String old = "old";
+        ExceptorClass exc = excs.get(owner);
+        String ret = exc == null || exc.getParams() == null ? null : exc.mapParam(name, desc, index, old);
+        if (ret == null) {
+            for (IMappingFile srg : srgs) {
+                IMappingFile.IClass cls = srg.getClass(owner);
+                if (cls != null) {
+                    IMappingFile.IMethod mtd = cls.getMethod(name, desc);
+                    if (mtd != null) {
+                        String mapped = mtd.remapParameter(index, old);
+                        if (mapped != old)
+                            return mapped;
+                    }
+                }
+            }
+        }
+        return ret;
+    }
+}
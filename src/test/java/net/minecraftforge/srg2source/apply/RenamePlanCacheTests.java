@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.apply;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// In the apply package as RenamePlanCache is package private, SingleTests fixtures cover it through RangeApplier in PlanCacheTests.
+public class RenamePlanCacheTests {
+    @TempDir Path temp;
+
+    private static RenamePlan plan(String name, String... values) {
+        TextEdits edits = new TextEdits();
+        for (int x = 0; x < values.length; x++)
+            edits.replace(x * 10, x * 10 + 3, values[x]);
+        return new RenamePlan(name, new TreeSet<>(Set.of("java.util.List", "a.b.C")), edits);
+    }
+
+    private static void assertPlan(RenamePlan expected, RenamePlan actual) {
+        Assertions.assertNotNull(actual, "Missing plan");
+        Assertions.assertEquals(expected.getFileName(), actual.getFileName());
+        Assertions.assertEquals(expected.getImports(), actual.getImports());
+        Assertions.assertEquals(expected.getEdits().size(), actual.getEdits().size());
+        String text = "0123456789".repeat(expected.getEdits().size());
+        Assertions.assertEquals(expected.getEdits().apply(text).toString(), actual.getEdits().apply(text).toString());
+    }
+
+    private List<Path> files() throws IOException {
+        try (Stream<Path> stream = Files.walk(temp)) {
+            return stream.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+    }
+
+    private RenamePlanCache cache(String context) {
+        RenamePlanCache ret = new RenamePlanCache(temp);
+        ret.setContext(context);
+        return ret;
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        RenamePlan plan = plan("a/Renamed.java", "foo", "bar", "");
+        RenamePlanCache cache = cache("mappings");
+        Assertions.assertNull(cache.get("a/Test.java", "hash"));
+        cache.put("a/Test.java", "hash", plan);
+        assertPlan(plan, cache.get("a/Test.java", "hash"));
+
+        // A new instance, like the next run, reads what the last one wrote
+        RenamePlanCache next = cache("mappings");
+        assertPlan(plan, next.get("a/Test.java", "hash"));
+        Assertions.assertNull(next.get("a/Test.java", "other"), "Different source hash");
+        Assertions.assertNull(next.get("a/Other.java", "hash"), "Different file");
+        Assertions.assertNull(cache("other mappings").get("a/Test.java", "hash"), "Different mappings");
+        Assertions.assertEquals(1, next.getHits());
+        Assertions.assertEquals(2, next.getMisses());
+
+        // Files with no hash can't be checked against the cache, so are never stored
+        next.put("a/Test.java", null, plan);
+        Assertions.assertNull(next.get("a/Test.java", null));
+        Assertions.assertEquals(1, files().size());
+    }
+
+    @Test
+    public void testNoContext() {
+        RenamePlanCache cache = new RenamePlanCache(temp);
+        Assertions.assertThrows(IllegalStateException.class, () -> cache.get("a/Test.java", "hash"));
+    }
+
+    @Test
+    public void testCorruptEntry() throws IOException {
+        RenamePlan plan = plan("a/Test.java", "foo", "bar");
+        RenamePlanCache cache = cache("mappings");
+        cache.put("a/Test.java", "hash", plan);
+        Path entry = files().get(0);
+        byte[] data = Files.readAllBytes(entry);
+
+        // Cut off half way through, like a crash with something that didn't write atomically
+        Files.write(entry, Arrays.copyOf(data, data.length / 2));
+        Assertions.assertNull(cache.get("a/Test.java", "hash"));
+        Assertions.assertFalse(Files.exists(entry), "Corrupt entries should be deleted");
+
+        // Written by a different version
+        cache.put("a/Test.java", "hash", plan);
+        data[3] = 99;
+        Files.write(entry, data);
+        Assertions.assertNull(cache.get("a/Test.java", "hash"));
+        Assertions.assertFalse(Files.exists(entry), "Unknown versions should be deleted");
+
+        // Edits out of order, which can't be applied
+        cache.put("a/Test.java", "hash", plan);
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(entry))) {
+            out.writeInt(1);
+            out.writeUTF("a/Test.java");
+            out.writeInt(0);
+            out.writeInt(2);
+            out.writeInt(10);
+            out.writeInt(13);
+            out.writeUTF("foo");
+            out.writeInt(0);
+            out.writeInt(3);
+            out.writeUTF("bar");
+        }
+        Assertions.assertNull(cache.get("a/Test.java", "hash"));
+        Assertions.assertFalse(Files.exists(entry), "Invalid edits should be deleted");
+
+        Assertions.assertEquals(0, cache.getHits());
+        Assertions.assertEquals(3, cache.getMisses());
+
+        // And it recovers the next time it is written
+        cache.put("a/Test.java", "hash", plan);
+        assertPlan(plan, cache.get("a/Test.java", "hash"));
+        Assertions.assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void testReplace() throws IOException {
+        RenamePlanCache cache = cache("mappings");
+        RenamePlan large = plan("a/Large.java", "a".repeat(1000), "b".repeat(1000));
+        RenamePlan small = plan("a/Small.java", "c");
+        cache.put("a/Test.java", "hash", large);
+        cache.put("a/Test.java", "hash", small);
+
+        // Replaced as a whole, nothing left over from the larger entry, and no temp files left behind
+        assertPlan(small, cache.get("a/Test.java", "hash"));
+        List<Path> files = files();
+        Assertions.assertEquals(1, files.size(), "Unexpected files: " + files);
+        Assertions.assertTrue(files.get(0).getFileName().toString().endsWith(".plan"));
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.test;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import net.minecraftforge.srg2source.util.ClassNames;
+
+public class ClassNamesTests {
+    // Identifier and non identifier starts, separators, and a surrogate pair that is a valid identifier start.
+    private static final String[] PARTS = { "a", "B", "_", "1", "9", "$", "$", "$", "/", "é", "𝐀", "-" };
+
+    @Test
+    public void testConversions() {
+        ClassNames names = new ClassNames();
+        Assertions.assertEquals("net.minecraft.Foo.Bar", names.internalToSource("net/minecraft/Foo$Bar"));
+        Assertions.assertEquals("net.minecraft.Foo$Bar", names.internalToBinary("net/minecraft/Foo$Bar"));
+        Assertions.assertEquals("Foo.Bar", names.internalToSource("Foo$Bar"));
+
+        String plain = "Foo";
+        Assertions.assertSame(plain, names.internalToSource(plain), "Nothing to convert should return the input");
+        Assertions.assertSame(plain, names.internalToBinary(plain), "Nothing to convert should return the input");
+        String inner = "Foo$Bar";
+        Assertions.assertSame(inner, names.internalToBinary(inner), "Binary names keep their $");
+
+        String first = names.internalToSource("a/B");
+        Assertions.assertSame(first, names.internalToSource("a/B"), "Conversions should be cached");
+    }
+
+    @Test
+    public void testFixLocalClassName() {
+        Assertions.assertEquals("a/Foo$Bar", ClassNames.fixLocalClassName("a/Foo$1Bar"));
+        Assertions.assertEquals("a/Foo$1", ClassNames.fixLocalClassName("a/Foo$1"));
+        Assertions.assertEquals("a/Foo$1$Bar", ClassNames.fixLocalClassName("a/Foo$1$2Bar"));
+        Assertions.assertEquals("a/Foo$Bar", ClassNames.fixLocalClassName("a/Foo$Bar$$"));
+        String plain = "a/Foo$Bar";
+        Assertions.assertSame(plain, ClassNames.fixLocalClassName(plain));
+    }
+
+    // The split based version from before the scan, its output is what every range map was applied with.
+    @Test
+    public void testFixLocalClassNameRandom() {
+        Random rand = new Random(1234);
+        StringBuilder buf = new StringBuilder();
+        for (int x = 0; x < 500_000; x++) {
+            buf.setLength(0);
+            buf.append(PARTS[rand.nextInt(3)]); // Nothing but $'s isn't a class name, and the split version throws on it
+            int length = 1 + rand.nextInt(12);
+            for (int y = 0; y < length; y++)
+                buf.append(PARTS[rand.nextInt(PARTS.length)]);
+            String name = buf.toString();
+            Assertions.assertEquals(legacyFixLocalClassName(name), ClassNames.fixLocalClassName(name), name);
+        }
+    }
+
+    private static String legacyFixLocalClassName(String fullname) {
+        int firstIdx = fullname.indexOf('$');
+        if (firstIdx == -1)
+            return fullname;
+
+        StringBuilder builder = new StringBuilder(fullname.length());
+        final String[] parts = fullname.split("\\$");
+        builder.append(parts[0]);
+        for (int part = 1; part < parts.length; part++) {
+            String piece = parts[part];
+            int idx = 0;
+            while (idx < piece.length() && !(Character.isJavaIdentifierStart(piece.codePointAt(idx)))) {
+                idx+=Character.charCount(piece.codePointAt(idx));
+            }
+            if (idx == piece.length()) {
+                builder.append("$").append(piece);
+            } else {
+                builder.append("$").append(piece.substring(idx));
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.minecraftforge.srg2source.api.RangeApplierBuilder;
+import net.minecraftforge.srg2source.util.io.ConfLogger;
+import net.minecraftforge.srg2source.util.io.ConfLogger.Level;
+import net.minecraftforge.srg2source.util.io.FolderSupplier;
+
+public class ConfLoggerTests {
+    @TempDir Path temp;
+
+    private static class TestLogger extends ConfLogger<TestLogger> {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+        private TestLogger(Level level) {
+            setLevel(level);
+            setLogger(new PrintStream(out));
+            setErrorLogger(new PrintStream(err));
+        }
+
+        // Redeclared so the tests in this package can call them
+        @Override protected void log(String s) { super.log(s); }
+        @Override protected void log(Level level, String s) { super.log(level, s); }
+        @Override protected void log(Level level, Supplier<String> message) { super.log(level, message); }
+
+        private List<String> out() {
+            return out.toString(StandardCharsets.UTF_8).lines().collect(Collectors.toList());
+        }
+
+        private List<String> err() {
+            return err.toString(StandardCharsets.UTF_8).lines().collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void testLevels() {
+        Assertions.assertEquals(Level.DEBUG, new TestLogger(Level.DEBUG).getLevel(), "DEBUG is the default so nothing changes for existing callers");
+
+        for (Level level : Level.values()) {
+            TestLogger logger = new TestLogger(level);
+            Assertions.assertEquals(level == Level.DEBUG, logger.isLogging(Level.DEBUG), level.name());
+            Assertions.assertEquals(level != Level.QUIET, logger.isLogging(Level.INFO), level.name());
+            Assertions.assertFalse(logger.isLogging(Level.QUIET), "QUIET is never a level messages are logged at");
+
+            logger.log("plain");
+            logger.log(Level.INFO, "info");
+            logger.log(Level.DEBUG, "debug");
+            logger.error("error");
+
+            List<String> expected;
+            switch (level) {
+                case DEBUG: expected = List.of("plain", "info", "debug"); break;
+                case INFO:  expected = List.of("plain", "info"); break;
+                default:    expected = List.of(); break;
+            }
+            Assertions.assertEquals(expected, logger.out(), level.name());
+            Assertions.assertEquals(List.of("error"), logger.err(), "Errors are logged at every level");
+        }
+    }
+
+    @Test
+    public void testLazyMessages() {
+        AtomicInteger built = new AtomicInteger();
+        Supplier<String> message = () -> "built " + built.incrementAndGet();
+
+        TestLogger quiet = new TestLogger(Level.QUIET);
+        quiet.log(Level.INFO, message);
+        quiet.log(Level.DEBUG, message);
+        TestLogger info = new TestLogger(Level.INFO);
+        info.log(Level.DEBUG, message);
+        Assertions.assertEquals(0, built.get(), "Messages below the level should never be built");
+
+        info.log(Level.INFO, message);
+        TestLogger debug = new TestLogger(Level.DEBUG);
+        debug.log(Level.DEBUG, message);
+        Assertions.assertEquals(2, built.get());
+        Assertions.assertEquals(List.of("built 1"), info.out());
+        Assertions.assertEquals(List.of("built 2"), debug.out());
+    }
+
+    // The parallel applier buffers each file's lines, they have to be filtered the same way and still come out in file order
+    @Test
+    public void testApply() throws IOException {
+        Path src = temp.resolve("src");
+        ParallelExtractTests.writeProject(src);
+        Path range = temp.resolve("src.range");
+        Files.write(range, ParallelExtractTests.extract(FolderSupplier.create(src, StandardCharsets.UTF_8), 1).getBytes(StandardCharsets.UTF_8));
+        List<String> files = FolderSupplier.create(src, StandardCharsets.UTF_8).gatherAll(".java").stream().sorted().collect(Collectors.toList());
+
+        for (int threads : new int[] { 1, 4 }) {
+            for (Level level : Level.values()) {
+                String name = level.name() + " on " + threads + " threads";
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                ByteArrayOutputStream err = new ByteArrayOutputStream();
+                Path target = Files.createDirectories(temp.resolve("out-" + threads + '-' + level.name()));
+                new RangeApplierBuilder()
+                    .logger(new PrintStream(out))
+                    .errorLogger(new PrintStream(err))
+                    .logLevel(level)
+                    .threads(threads)
+                    .input(src)
+                    .output(target)
+                    .range(range)
+                    .build()
+                    .run();
+
+                for (String file : files)
+                    Assertions.assertArrayEquals(Files.readAllBytes(src.resolve(file)), Files.readAllBytes(target.resolve(file)), name + ": " + file);
+
+                List<String> log = out.toString(StandardCharsets.UTF_8).lines().collect(Collectors.toList());
+                List<String> started = log.stream()
+                    .filter(l -> l.startsWith("Start Processing: "))
+                    .map(l -> l.substring(18))
+                    .collect(Collectors.toList());
+                switch (level) {
+                    case DEBUG:
+                        Assertions.assertEquals(files, started, name);
+                        Assertions.assertTrue(log.stream().anyMatch(l -> l.startsWith("Timings: ")), name);
+                        break;
+                    case INFO:
+                        Assertions.assertEquals(List.of(), started, name);
+                        Assertions.assertFalse(log.stream().anyMatch(l -> l.startsWith("End  Processing: ")), name);
+                        Assertions.assertTrue(log.contains("Processing " + files.size() + " files"), name);
+                        Assertions.assertTrue(log.stream().anyMatch(l -> l.startsWith("Timings: ")), name);
+                        break;
+                    default:
+                        Assertions.assertEquals(List.of(), log, name);
+                        break;
+                }
+                Assertions.assertEquals("", err.toString(StandardCharsets.UTF_8), name);
+            }
+        }
+    }
+}
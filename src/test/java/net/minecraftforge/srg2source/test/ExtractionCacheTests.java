@@ -0,0 +1,259 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
+
+import net.minecraftforge.srg2source.api.RangeExtractorBuilder;
+import net.minecraftforge.srg2source.extract.ExtractionCache;
+import net.minecraftforge.srg2source.extract.RangeExtractor;
+import net.minecraftforge.srg2source.util.ContentHash;
+import net.minecraftforge.srg2source.util.Util;
+import net.minecraftforge.srg2source.util.io.FolderSupplier;
+
+public class ExtractionCacheTests {
+    @TempDir Path temp;
+
+    private RangeExtractor extractor(Path src, Path cache, ContentHash hash, ByteArrayOutputStream data, Path... libraries) throws IOException {
+        RangeExtractorBuilder builder = new RangeExtractorBuilder()
+            .input(FolderSupplier.create(src, StandardCharsets.UTF_8))
+            .logger(new PrintStream(OutputStream.nullOutputStream()))
+            .contentHash(hash)
+            .output(new PrintWriter(data));
+        if (cache != null)
+            builder.cacheDirectory(cache);
+        for (Path lib : libraries)
+            builder.library(lib.toFile());
+        return builder.build();
+    }
+
+    private String extract(Path src, Path cache, int expectedHits) throws IOException {
+        return extract(src, cache, ContentHash.MD5, expectedHits);
+    }
+
+    private String extract(Path src, Path cache, ContentHash hash, int expectedHits, Path... libraries) throws IOException {
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        RangeExtractor extractor = extractor(src, cache, hash, data, libraries);
+        Assertions.assertTrue(extractor.run(), "Failed to do work!");
+        if (expectedHits >= 0)
+            Assertions.assertEquals(expectedHits, extractor.getCacheHits(), "Cache hits");
+        return data.toString(StandardCharsets.UTF_8);
+    }
+
+    // Edits one file that references classes that will come from the cache, the result has to match extracting from scratch.
+    private void testWarmCache(Path src) throws IOException {
+        Path cache = temp.resolve("cache");
+        ParallelExtractTests.writeProject(src);
+        String cold = extract(src, cache, 0);
+        Assertions.assertEquals(cold, extract(src, cache, 40));
+
+        Path edited = src.resolve("p0/C0_0.java");
+        String data = new String(Files.readAllBytes(edited), StandardCharsets.UTF_8);
+        data = data.replace("    public int field;\n", "    public int field;\n    public p2.C2_1 added;\n");
+        Files.write(edited, data.getBytes(StandardCharsets.UTF_8));
+
+        String expected = extract(src, null, -1);
+        Assertions.assertTrue(expected.contains("p2.C2_1 true p2/C2_1"), "Reference to p2.C2_1 did not resolve");
+        Assertions.assertEquals(expected, extract(src, cache, 39));
+    }
+
+    @Test
+    public void testWarmCacheOnDisk() throws IOException {
+        testWarmCache(temp.resolve("src"));
+    }
+
+    // Nothing can be found through a source path, so the cached files need to be parsed with the edited one
+    @Test
+    public void testWarmCacheInMemory() throws IOException {
+        try (FileSystem imfs = Jimfs.newFileSystem(Configuration.unix())) {
+            testWarmCache(imfs.getPath("/src"));
+        }
+    }
+
+    private static List<Path> entries(Path cache) throws IOException {
+        try (Stream<Path> stream = Files.walk(cache)) {
+            return stream.filter(p -> p.getFileName().toString().endsWith(".range")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    // Half written or damaged entries are misses, they get replaced with good ones instead of failing the run
+    @Test
+    public void testCorruptEntries() throws IOException {
+        Path src = temp.resolve("src");
+        Path cache = temp.resolve("cache");
+        ParallelExtractTests.writeProject(src);
+        String cold = extract(src, cache, 0);
+
+        List<Path> entries = entries(cache);
+        Assertions.assertEquals(40, entries.size());
+        for (int x = 0; x < entries.size(); x++) {
+            if (x % 2 == 0)
+                Files.write(entries.get(x), "not a range map".getBytes(StandardCharsets.UTF_8));
+            else // Truncated, like a crash part way through the old non atomic write
+                Files.write(entries.get(x), Files.readAllLines(entries.get(x)).subList(0, 2));
+        }
+
+        Assertions.assertEquals(cold, extract(src, cache, 0));
+        Assertions.assertEquals(cold, extract(src, cache, 40));
+        try (Stream<Path> stream = Files.walk(cache)) {
+            Assertions.assertFalse(stream.anyMatch(p -> p.getFileName().toString().endsWith(".tmp")), "Temp files left behind");
+        }
+    }
+
+    @Test
+    public void testEviction() throws IOException {
+        Path src = temp.resolve("src");
+        Path cache = temp.resolve("cache");
+        ParallelExtractTests.writeProject(src);
+        String cold = extract(src, cache, 0);
+
+        List<Path> entries = entries(cache);
+        long keep = 0;
+        for (int x = 0; x < entries.size(); x++) {
+            Files.setLastModifiedTime(entries.get(x), FileTime.fromMillis(1_000_000L * (x + 1)));
+            if (x >= 10)
+                keep += Files.size(entries.get(x));
+        }
+
+        Assertions.assertEquals(0, new ExtractionCache(cache, 0).evict(), "No limit should never evict");
+        Assertions.assertEquals(0, new ExtractionCache(cache, keep * 2).evict(), "Under the limit should never evict");
+        Assertions.assertEquals(10, new ExtractionCache(cache, keep).evict());
+        Assertions.assertEquals(entries.subList(10, entries.size()), entries(cache), "Only the oldest entries should be evicted");
+
+        // Hits touch their entries, so the ones that are used again are the last to go
+        Assertions.assertEquals(cold, extract(src, cache, 30));
+        for (Path entry : entries(cache))
+            Assertions.assertTrue(Files.getLastModifiedTime(entry).toMillis() > 1_000_000L * 41, "Entry was not touched: " + entry);
+    }
+
+    // Old temp files are from puts that crashed, recent ones may still be being written by another process
+    @Test
+    public void testEvictTemps() throws IOException {
+        Path cache = Files.createDirectories(temp.resolve("cache/ab"));
+        Path old = Files.write(cache.resolve("abcd.range123.tmp"), new byte[10]);
+        Path recent = Files.write(cache.resolve("abcd.range456.tmp"), new byte[10]);
+        Files.setLastModifiedTime(old, FileTime.fromMillis(System.currentTimeMillis() - 2 * 60 * 60 * 1000));
+
+        Assertions.assertEquals(0, new ExtractionCache(temp.resolve("cache"), 0).evict(), "Temp files are not entries");
+        Assertions.assertFalse(Files.exists(old), "Old temp file was not removed");
+        Assertions.assertTrue(Files.exists(recent), "Temp files that may still be in use should be left alone");
+        Assertions.assertEquals(0, new ExtractionCache(temp.resolve("missing"), 1).evict());
+    }
+
+    // Other processes sharing the cache add and remove entries while we walk it, none of that should fail the run
+    @Test
+    public void testEvictConcurrent() throws Exception {
+        Path cache = temp.resolve("cache");
+        AtomicBoolean done = new AtomicBoolean();
+        Thread churn = new Thread(() -> {
+            try {
+                for (int x = 0; !done.get(); x++) {
+                    Path dir = cache.resolve(String.format("%02x", x % 16));
+                    Path entry = dir.resolve(x + ".range");
+                    try {
+                        Files.createDirectories(dir);
+                        Files.write(entry, new byte[100]);
+                        Files.deleteIfExists(entry);
+                        if (x % 3 == 0)
+                            Files.deleteIfExists(dir);
+                    } catch (NoSuchFileException | DirectoryNotEmptyException e) {
+                        // Racing with evict, or another entry in the same directory
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        churn.start();
+        try {
+            ExtractionCache evictor = new ExtractionCache(cache, 50);
+            for (int x = 0; x < 2000; x++)
+                evictor.evict();
+        } finally {
+            done.set(true);
+            churn.join();
+        }
+    }
+
+    // Directories are identified by their contents like jars are, not where they are
+    @Test
+    public void testDirectoryLibrary() throws IOException {
+        Path src = temp.resolve("src");
+        Path cache = temp.resolve("cache");
+        ParallelExtractTests.writeProject(src);
+        Path lib = temp.resolve("first/lib");
+        Files.createDirectories(lib.resolve("a"));
+        Files.write(lib.resolve("a/data.txt"), "one".getBytes(StandardCharsets.UTF_8));
+
+        String cold = extract(src, cache, ContentHash.MD5, 0, lib);
+        Assertions.assertEquals(cold, extract(src, cache, ContentHash.MD5, 40, lib));
+
+        Path moved = temp.resolve("second/lib");
+        Files.createDirectories(moved.resolve("a"));
+        Files.copy(lib.resolve("a/data.txt"), moved.resolve("a/data.txt"));
+        Assertions.assertEquals(cold, extract(src, cache, ContentHash.MD5, 40, moved), "Same contents somewhere else should hit");
+
+        Files.write(moved.resolve("a/data.txt"), "two".getBytes(StandardCharsets.UTF_8));
+        Assertions.assertEquals(cold, extract(src, cache, ContentHash.MD5, 0, moved), "Changed contents should miss");
+        Files.write(moved.resolve("a/added.txt"), "one".getBytes(StandardCharsets.UTF_8));
+        Assertions.assertEquals(cold, extract(src, cache, ContentHash.MD5, 0, moved), "Added files should miss");
+    }
+
+    @Test
+    public void testContentHash() throws IOException {
+        byte[] data = "class Foo {}\n".getBytes(StandardCharsets.UTF_8);
+        for (ContentHash hash : ContentHash.values()) {
+            Assertions.assertEquals(hash.hash(data), hash.hash(new ByteArrayInputStream(data)), hash.name());
+            Assertions.assertEquals(hash.hash(data, 6, 3), hash.hash("Foo".getBytes(StandardCharsets.UTF_8)), hash.name());
+            Assertions.assertNotEquals(hash.hash(data), hash.hash(new byte[0]), hash.name());
+        }
+        // Range maps written before hashes were pluggable are all MD5 of the text
+        Assertions.assertEquals(Util.md5("class Foo {}\n", StandardCharsets.UTF_8), ContentHash.MD5.hash(data));
+        Assertions.assertEquals("d41d8cd98f00b204e9800998ecf8427e", ContentHash.MD5.hash(new byte[0]));
+        // The crc followed by the length
+        Assertions.assertEquals(24, ContentHash.CRC32C.hash(data).length());
+        Assertions.assertTrue(ContentHash.CRC32C.hash(data).endsWith("000000000000000d"));
+
+        Path src = temp.resolve("src");
+        Path cache = temp.resolve("cache");
+        ParallelExtractTests.writeProject(src);
+        String md5 = extract(src, null, ContentHash.MD5, -1);
+        String crc = extract(src, cache, ContentHash.CRC32C, 0);
+        Assertions.assertEquals(withoutHashes(md5), withoutHashes(crc), "Only the file hashes should change");
+        Assertions.assertNotEquals(md5, crc);
+        Assertions.assertEquals(crc, extract(src, cache, ContentHash.CRC32C, 40));
+        // Entries are keyed by the hash, so switching algorithms never reuses them
+        Assertions.assertEquals(md5, extract(src, cache, ContentHash.MD5, 0));
+    }
+
+    private static String withoutHashes(String data) {
+        return data.lines().map(l -> l.startsWith("start ") ? l.substring(0, l.lastIndexOf(' ')) : l).collect(Collectors.joining("\n"));
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.minecraftforge.srg2source.api.RangeExtractorBuilder;
+import net.minecraftforge.srg2source.util.Metrics;
+import net.minecraftforge.srg2source.util.io.FolderSupplier;
+
+public class MetricsTests {
+    private static final long MS = 1_000_000;
+
+    @TempDir Path temp;
+
+    // Pretends the file started the given number of milliseconds ago
+    private static void file(Metrics metrics, String path, long millis) {
+        metrics.file(path, System.nanoTime() - millis * MS, -1);
+    }
+
+    private static List<String> paths(Metrics metrics) {
+        return metrics.getSlowest().stream().map(Metrics.SlowFile::getPath).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testSlowest() {
+        Metrics metrics = new Metrics();
+        metrics.setSlowestLimit(3);
+        file(metrics, "b", 2000);
+        file(metrics, "e", 5000);
+        file(metrics, "a", 1000);
+        file(metrics, "d", 4000);
+        file(metrics, "c", 3000);
+        Assertions.assertEquals(List.of("e", "d", "c"), paths(metrics), "Should keep the slowest, slowest first");
+
+        List<String> summary = metrics.getSlowestSummary();
+        Assertions.assertEquals(3, summary.size());
+        Assertions.assertTrue(summary.get(0).matches(" *\\d{4}ms +\\? e"), summary.get(0));
+
+        metrics.setSlowestLimit(1);
+        Assertions.assertEquals(List.of("e"), paths(metrics), "Lowering the limit should drop the fastest");
+
+        metrics.setSlowestLimit(0);
+        file(metrics, "f", 6000);
+        Assertions.assertTrue(metrics.getSlowest().isEmpty(), "A limit of zero turns it off");
+        Assertions.assertTrue(metrics.getSlowestSummary().isEmpty());
+    }
+
+    @Test
+    public void testAllocated() {
+        Metrics metrics = new Metrics();
+        long start = metrics.start();
+        long allocated = metrics.allocated();
+        byte[][] garbage = new byte[64][];
+        for (int x = 0; x < garbage.length; x++)
+            garbage[x] = new byte[1 << 16];
+        metrics.file("garbage", start, allocated);
+
+        Metrics.SlowFile file = metrics.getSlowest().get(0);
+        if (allocated < 0)
+            Assertions.assertEquals(-1, file.getAllocated(), "Allocations should be unknown when the VM can't tell us");
+        else
+            Assertions.assertTrue(file.getAllocated() >= garbage.length << 16, "Allocated " + file.getAllocated());
+    }
+
+    @Test
+    public void testCounters() throws IOException {
+        Metrics metrics = new Metrics();
+        metrics.time("read", 5 * MS);
+        metrics.time("parse", 7 * MS);
+        metrics.time("read", 3 * MS);
+        metrics.increment("files");
+        metrics.add("files", 2);
+        metrics.increment("errors \"quoted\"");
+
+        Assertions.assertEquals(8 * MS, metrics.getNanos("read"));
+        Assertions.assertEquals(2, metrics.getCount("read"));
+        Assertions.assertEquals(0, metrics.getNanos("missing"));
+        Assertions.assertEquals(3, metrics.getCounter("files"));
+        Assertions.assertEquals(0, metrics.getCounter("missing"));
+        Assertions.assertEquals(List.of("read", "parse"), List.copyOf(metrics.getTimes().keySet()), "Phases are in the order they first ran");
+        Assertions.assertEquals(Map.of("files", 3L, "errors \"quoted\"", 1L), metrics.getCounters());
+        Assertions.assertEquals("read 8ms, parse 7ms", metrics.getSummary());
+
+        file(metrics, "a\\b.java", 1);
+        Path json = temp.resolve("out/metrics.json");
+        metrics.writeJson(json);
+        String data = new String(Files.readAllBytes(json), StandardCharsets.UTF_8);
+        Assertions.assertEquals(metrics.toJson(), data);
+        Assertions.assertTrue(data.contains("\"read\": { \"nanos\": " + 8 * MS + ", \"count\": 2 }"), data);
+        Assertions.assertTrue(data.contains("\"errors \\\"quoted\\\"\": 1"), data);
+        Assertions.assertTrue(data.contains("{ \"file\": \"a\\\\b.java\", \"nanos\": "), data);
+
+        Assertions.assertEquals("{\n  \"phases\": {},\n  \"counters\": {},\n  \"slowest\": []\n}\n", new Metrics().toJson());
+    }
+
+    // Every file is recorded once no matter which thread processed it, and the report ends up in the log, as comments like every extractor line
+    @Test
+    public void testExtract() throws IOException {
+        ParallelExtractTests.writeProject(temp);
+        Set<String> files = new HashSet<>(FolderSupplier.create(temp, StandardCharsets.UTF_8).gatherAll(".java"));
+
+        for (int threads : new int[] { 1, 4 }) {
+            Metrics metrics = new Metrics();
+            metrics.setSlowestLimit(5);
+            ByteArrayOutputStream logs = new ByteArrayOutputStream();
+            boolean worked = new RangeExtractorBuilder()
+                .input(FolderSupplier.create(temp, StandardCharsets.UTF_8))
+                .logger(new PrintStream(logs))
+                .output(new PrintWriter(OutputStream.nullOutputStream()))
+                .threads(threads)
+                .metrics(metrics)
+                .build()
+                .run();
+            Assertions.assertTrue(worked, "Failed to do work!");
+
+            Assertions.assertEquals(files.size(), metrics.getCounter("files"));
+            Assertions.assertEquals(0, metrics.getCounter("errors"));
+            Assertions.assertTrue(metrics.getTimes().containsKey("total"));
+
+            List<Metrics.SlowFile> slowest = metrics.getSlowest();
+            Assertions.assertEquals(5, slowest.size());
+            for (int x = 1; x < slowest.size(); x++)
+                Assertions.assertTrue(slowest.get(x - 1).getNanos() >= slowest.get(x).getNanos(), "Not sorted slowest first");
+            Set<String> seen = new HashSet<>(paths(metrics));
+            Assertions.assertEquals(5, seen.size(), "Files should only be recorded once: " + seen);
+            Assertions.assertTrue(files.containsAll(seen), "Unknown files: " + seen);
+
+            List<String> log = logs.toString(StandardCharsets.UTF_8).lines().collect(Collectors.toList());
+            int idx = log.indexOf("# Slowest files:");
+            Assertions.assertNotEquals(-1, idx, () -> "Missing slowest files report: " + log);
+            Assertions.assertEquals(metrics.getSlowestSummary(), log.subList(idx + 1, idx + 6).stream().map(l -> l.substring(4)).collect(Collectors.toList()));
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.minecraftforge.srg2source.api.RangeApplierBuilder;
+import net.minecraftforge.srg2source.util.Util;
+import net.minecraftforge.srg2source.util.io.FolderSupplier;
+
+/*
+ * Every SingleTests fixture, applied on multiple threads, has to match the original exactly. Fixtures with more than one file go through the worker pool.
+ */
+public class ParallelApplyTests extends SingleTests {
+    @TempDir Path temp;
+
+    @Override protected RangeApplierBuilder customize(RangeApplierBuilder builder) { return builder.threads(4); }
+
+    // Renames every class, field and method in the project, so every file has edits and a new name
+    private Path writeSrg(Path src) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (String file : FolderSupplier.create(src, StandardCharsets.UTF_8).gatherAll(".java")) {
+            String cls = file.substring(0, file.length() - 5);
+            lines.add(cls + ' ' + cls.replace("/C", "/R"));
+            lines.add("\tfield renamed_field");
+            lines.add("\tvalue (I)I renamed_value");
+        }
+        Path ret = temp.resolve("project.tsrg");
+        Files.write(ret, lines);
+        return ret;
+    }
+
+    private Map<String, String> apply(Path src, Path range, Path srg, Path output, int threads) throws IOException {
+        new RangeApplierBuilder()
+            .logger(new PrintStream(OutputStream.nullOutputStream()))
+            .threads(threads)
+            .input(src)
+            .srg(srg)
+            .range(range)
+            .output(output)
+            .build()
+            .run();
+
+        Map<String, String> ret = new LinkedHashMap<>();
+        if (Files.isDirectory(output)) {
+            try (Stream<Path> files = Files.walk(output)) {
+                for (Path file : files.filter(Files::isRegularFile).sorted().collect(Collectors.toList()))
+                    ret.put(output.relativize(file).toString().replace('\\', '/'), new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+            }
+        } else {
+            try (InputStream in = Files.newInputStream(output);
+                 ZipInputStream zin = new ZipInputStream(in)) {
+                for (ZipEntry entry = zin.getNextEntry(); entry != null; entry = zin.getNextEntry())
+                    ret.put(entry.getName(), new String(Util.readStream(zin), StandardCharsets.UTF_8));
+            }
+        }
+        return ret;
+    }
+
+    @Test
+    public void testRenameProject() throws IOException {
+        Path src = temp.resolve("src");
+        ParallelExtractTests.writeProject(src);
+        Path range = temp.resolve("src.range");
+        Files.write(range, ParallelExtractTests.extract(FolderSupplier.create(src, StandardCharsets.UTF_8), 1).getBytes(StandardCharsets.UTF_8));
+        Path srg = writeSrg(src);
+
+        Map<String, String> expected = apply(src, range, srg, Files.createDirectories(temp.resolve("single")), 1);
+        Assertions.assertEquals(40, expected.size());
+        String renamed = expected.get("p0/R0_0.java");
+        Assertions.assertNotNull(renamed, "Classes were not renamed: " + expected.keySet());
+        Assertions.assertTrue(renamed.contains("public class R0_0 {"), renamed);
+        Assertions.assertTrue(renamed.contains("import p1.R1_0;"), renamed);
+        Assertions.assertTrue(renamed.contains("this.renamed_field + this.other.renamed_field + this.other.renamed_value(param)"), renamed);
+
+        Assertions.assertEquals(expected, apply(src, range, srg, Files.createDirectories(temp.resolve("parallel")), 4));
+
+        // Zip entries are written by the calling thread in sorted order, no matter which worker finished first
+        Map<String, String> single = apply(src, range, srg, temp.resolve("single.zip"), 1);
+        Map<String, String> parallel = apply(src, range, srg, temp.resolve("parallel.zip"), 4);
+        Assertions.assertEquals(expected, single);
+        Assertions.assertEquals(List.copyOf(single.keySet()), List.copyOf(parallel.keySet()), "Zip entries should be in the same order");
+        Assertions.assertEquals(single, parallel);
+    }
+
+    // Files missing from the input are skipped, and what the workers log about them comes out between the files around them
+    @Test
+    public void testMissingInput() throws IOException {
+        Path src = temp.resolve("src");
+        ParallelExtractTests.writeProject(src);
+        Path range = temp.resolve("src.range");
+        Files.write(range, ParallelExtractTests.extract(FolderSupplier.create(src, StandardCharsets.UTF_8), 1).getBytes(StandardCharsets.UTF_8));
+        Files.delete(src.resolve("p3/C3_2.java"));
+
+        ByteArrayOutputStream logs = new ByteArrayOutputStream();
+        Path output = Files.createDirectories(temp.resolve("out"));
+        new RangeApplierBuilder()
+            .logger(new PrintStream(logs))
+            .threads(4)
+            .input(src)
+            .range(range)
+            .output(output)
+            .build()
+            .run();
+
+        List<String> log = logs.toString(StandardCharsets.UTF_8).lines().collect(Collectors.toList());
+        Assertions.assertTrue(log.contains("Data not found: p3/C3_2.java"), "Missing file was not logged");
+        Assertions.assertTrue(log.indexOf("Start Processing: p3/C3_1.java") < log.indexOf("Data not found: p3/C3_2.java"), "Logged out of order");
+        Assertions.assertTrue(log.indexOf("Data not found: p3/C3_2.java") < log.indexOf("Start Processing: p3/C3_3.java"), "Logged out of order");
+        Assertions.assertFalse(Files.exists(output.resolve("p3/C3_2.java")));
+        Assertions.assertTrue(Files.exists(output.resolve("p3/C3_3.java")));
+    }
+}
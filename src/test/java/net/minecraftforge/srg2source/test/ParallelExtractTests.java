@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
+
+import net.minecraftforge.srg2source.api.InputSupplier;
+import net.minecraftforge.srg2source.api.RangeExtractorBuilder;
+import net.minecraftforge.srg2source.util.io.FolderSupplier;
+
+/*
+ * Every SingleTests fixture, extracted on multiple threads, has to match the single threaded range maps exactly.
+ */
+public class ParallelExtractTests extends SingleTests {
+    private static final int PACKAGES = 8;
+    private static final int CLASSES = 5;
+
+    @TempDir Path temp;
+
+    @Override protected RangeExtractorBuilder customize(RangeExtractorBuilder builder) { return builder.threads(4); }
+
+    // Every class references one in the next package, so most references cross shards
+    static void writeProject(Path root) throws IOException {
+        for (int pkg = 0; pkg < PACKAGES; pkg++) {
+            int next = (pkg + 1) % PACKAGES;
+            for (int cls = 0; cls < CLASSES; cls++) {
+                String name = "C" + pkg + '_' + cls;
+                String other = "C" + next + '_' + cls;
+                Path file = root.resolve("p" + pkg + '/' + name + ".java");
+                Files.createDirectories(file.getParent());
+                Files.write(file, (
+                    "package p" + pkg + ";\n" +
+                    "\n" +
+                    "import p" + next + '.' + other + ";\n" +
+                    "\n" +
+                    "public class " + name + " {\n" +
+                    "    public int field;\n" +
+                    "    public " + other + " other;\n" +
+                    "\n" +
+                    "    public int value(int param) {\n" +
+                    "        return this.field + this.other.field + this.other.value(param);\n" +
+                    "    }\n" +
+                    "}\n").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    static String extract(InputSupplier input, int threads) {
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        boolean worked = new RangeExtractorBuilder()
+            .input(input)
+            .logger(new PrintStream(OutputStream.nullOutputStream()))
+            .output(new PrintWriter(data))
+            .threads(threads)
+            .build()
+            .run();
+        Assertions.assertTrue(worked, "Failed to do work!");
+        return data.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testShardsOnDisk() throws IOException {
+        writeProject(temp);
+        String expected = extract(FolderSupplier.create(temp, StandardCharsets.UTF_8), 1);
+        Assertions.assertTrue(expected.contains("field p1/C1_0"), "References into other packages did not resolve");
+        Assertions.assertEquals(expected, extract(FolderSupplier.create(temp, StandardCharsets.UTF_8), 4));
+    }
+
+    // Shards finish in any order, the range maps still have to come out sorted by path
+    @Test
+    public void testShardOrder() throws IOException {
+        writeProject(temp);
+        List<String> files = extract(FolderSupplier.create(temp, StandardCharsets.UTF_8), 4).lines()
+            .filter(l -> l.startsWith("start "))
+            .map(l -> l.split(" ")[2])
+            .collect(Collectors.toList());
+        List<String> sorted = new ArrayList<>(files);
+        Collections.sort(sorted);
+        Assertions.assertEquals(PACKAGES * CLASSES, files.size());
+        Assertions.assertEquals(sorted, files);
+    }
+
+    // JDT can't find these through a source path, so they have to end up in a single batch
+    @Test
+    public void testShardsInMemory() throws IOException {
+        writeProject(temp);
+        String expected = extract(FolderSupplier.create(temp, StandardCharsets.UTF_8), 1);
+        try (FileSystem imfs = Jimfs.newFileSystem(Configuration.unix())) {
+            Path root = imfs.getPath("/src");
+            writeProject(root);
+            Assertions.assertEquals(expected, extract(FolderSupplier.create(root, StandardCharsets.UTF_8), 4));
+        }
+    }
+
+    // JDT reads every file through a static hook, each extractor has to get its own input even when they batch at the same time.
+    // Both projects have the same paths, so reading from the wrong one changes the output.
+    @Test
+    public void testConcurrentExtractors() throws Exception {
+        Path first = temp.resolve("first");
+        Path second = temp.resolve("second");
+        writeProject(first);
+        writeProject(second);
+        try (Stream<Path> files = Files.walk(second)) {
+            for (Path file : files.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                String data = Files.readString(file).replace("    public int field;\n", "    public int field;\n    public long other_field;\n");
+                Files.writeString(file, data);
+            }
+        }
+
+        String expectedFirst = extract(FolderSupplier.create(first, StandardCharsets.UTF_8), 1);
+        String expectedSecond = extract(FolderSupplier.create(second, StandardCharsets.UTF_8), 1);
+        Assertions.assertNotEquals(expectedFirst, expectedSecond);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int run = 0; run < 5; run++) {
+                CyclicBarrier barrier = new CyclicBarrier(2);
+                Future<String> a = executor.submit(() -> {
+                    barrier.await();
+                    return extract(FolderSupplier.create(first, StandardCharsets.UTF_8), 1);
+                });
+                Future<String> b = executor.submit(() -> {
+                    barrier.await();
+                    return extract(FolderSupplier.create(second, StandardCharsets.UTF_8), 1);
+                });
+                Assertions.assertEquals(expectedFirst, a.get(), "First project, run " + run);
+                Assertions.assertEquals(expectedSecond, b.get(), "Second project, run " + run);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
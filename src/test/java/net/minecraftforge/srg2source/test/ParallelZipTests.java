@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.minecraftforge.srg2source.util.Util;
+import net.minecraftforge.srg2source.util.io.ParallelZipOutputSupplier;
+
+public class ParallelZipTests {
+    @TempDir Path temp;
+
+    private static void write(ParallelZipOutputSupplier zip, String name, String data) throws IOException {
+        try (OutputStream out = zip.getOutput(name)) {
+            out.write(data.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Path target = temp.resolve("out.zip");
+        try (ParallelZipOutputSupplier zip = new ParallelZipOutputSupplier(target, Deflater.BEST_COMPRESSION, 4)) {
+            for (int x = 0; x < 100; x++)
+                write(zip, "pkg/C" + x + ".java", "class C" + x + " {}\n".repeat(x + 1));
+            Assertions.assertNull(zip.getOutput("pkg/C0.java"), "Duplicate entry");
+        }
+
+        try (ZipFile zip = new ZipFile(target.toFile())) {
+            Assertions.assertEquals(100, zip.size());
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            for (int x = 0; x < 100; x++) {
+                ZipEntry entry = entries.nextElement();
+                Assertions.assertEquals("pkg/C" + x + ".java", entry.getName(), "Entries out of order");
+                String data = new String(Util.readStream(zip.getInputStream(entry)), StandardCharsets.UTF_8);
+                Assertions.assertEquals("class C" + x + " {}\n".repeat(x + 1), data);
+            }
+        }
+    }
+
+    // More than 65535 entries needs the Zip64 end records, which ZipOutputSupplier always handled
+    @Test
+    public void testZip64Entries() throws IOException {
+        int count = 0x10000 + 10;
+        Path target = temp.resolve("big.zip");
+        try (ParallelZipOutputSupplier zip = new ParallelZipOutputSupplier(target, ParallelZipOutputSupplier.STORED, 2)) {
+            for (int x = 0; x < count; x++)
+                write(zip, "e" + x, Integer.toString(x));
+        }
+
+        try (ZipFile zip = new ZipFile(target.toFile())) {
+            Assertions.assertEquals(count, zip.size());
+            ZipEntry last = zip.getEntry("e" + (count - 1));
+            Assertions.assertNotNull(last);
+            Assertions.assertEquals(Integer.toString(count - 1), new String(Util.readStream(zip.getInputStream(last)), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testUnusedStartsNoThreads() throws IOException {
+        Path target = temp.resolve("empty.zip");
+        try (ParallelZipOutputSupplier zip = new ParallelZipOutputSupplier(target, Deflater.DEFAULT_COMPRESSION, 8)) {
+            Assertions.assertFalse(Thread.getAllStackTraces().keySet().stream().anyMatch(t -> t.getName().startsWith("S2S Zip")), "Compression threads started without any entries");
+        }
+        try (ZipFile zip = new ZipFile(target.toFile())) {
+            Assertions.assertEquals(0, zip.size());
+        }
+    }
+}
@@ -0,0 +1,22 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.test;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.io.TempDir;
+
+import net.minecraftforge.srg2source.api.RangeApplierBuilder;
+
+/*
+ * Every SingleTests fixture, applied with a rename plan cache. Each fixture is applied twice, the second time from the plans
+ * the first one stored, and both have to match the original exactly.
+ */
+public class PlanCacheTests extends SingleTests {
+    @TempDir Path cache;
+
+    @Override protected RangeApplierBuilder customize(RangeApplierBuilder builder) { return builder.planCache(cache); }
+}
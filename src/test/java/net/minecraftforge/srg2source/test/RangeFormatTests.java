@@ -0,0 +1,358 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.minecraftforge.srg2source.api.InputSupplier;
+import net.minecraftforge.srg2source.api.RangeApplierBuilder;
+import net.minecraftforge.srg2source.api.RangeExtractorBuilder;
+import net.minecraftforge.srg2source.apply.RangeApplier;
+import net.minecraftforge.srg2source.extract.RangeExtractor;
+import net.minecraftforge.srg2source.range.BinaryRangeMapReader;
+import net.minecraftforge.srg2source.range.BinaryRangeMapWriter;
+import net.minecraftforge.srg2source.range.DirectoryRangeMapWriter;
+import net.minecraftforge.srg2source.range.IRangeMapWriter;
+import net.minecraftforge.srg2source.range.RangeMap;
+import net.minecraftforge.srg2source.range.RangeMapBuilder;
+import net.minecraftforge.srg2source.range.RangeMapFormat;
+import net.minecraftforge.srg2source.range.SplitRangeMapReader;
+import net.minecraftforge.srg2source.util.io.FolderSupplier;
+
+public class RangeFormatTests {
+    @TempDir Path temp;
+
+    private static RangeMap build() {
+        return build("test/Nested.java");
+    }
+
+    private static RangeMap build(String filename) {
+        RangeMapBuilder builder = new RangeMapBuilder(new RangeExtractor(), filename, "hash");
+        builder.addPackageReference(8, 4, "test");
+        builder.addImportBlock(15, 21);
+        builder.addImportDeclaration(15, 21, "java.util.List", false, false);
+        builder.addClassReference(25, 10, "List", "java/util/List", true);
+        builder.addClassDeclaration(40, 100, "test/Nested");
+        builder.addClassReference(53, 6, "Nested", "test/Nested", false);
+        builder.addMethodDeclaration(60, 40, "size", "()I");
+        builder.addMethodReference(70, 4, "size", "java/util/List", "size", "()I");
+        builder.addFieldReference(80, 5, "names", "test/Nested");
+        builder.addClassDeclaration(105, 30, "test/Nested$Inner");
+        builder.addClassReference(111, 5, "Inner", "test/Nested$Inner", false);
+        builder.addFieldReference(120, 5, "names", "test/Nested");
+        return builder.build();
+    }
+
+    private static String write(RangeMap range, boolean pretty) {
+        StringWriter ret = new StringWriter();
+        try (PrintWriter out = new PrintWriter(ret)) {
+            range.write(out, pretty);
+        }
+        return ret.toString();
+    }
+
+    private static byte[] toBinary(RangeMap range) throws IOException {
+        ByteArrayOutputStream ret = new ByteArrayOutputStream();
+        try (BinaryRangeMapWriter writer = new BinaryRangeMapWriter(ret)) {
+            writer.write(range);
+        }
+        return ret.toByteArray();
+    }
+
+    // Without pretty printing every structure is still written exactly once, just without the comments and indentation
+    @Test
+    public void testCompactMatchesPretty() {
+        RangeMap range = build();
+        String pretty = write(range, true).lines()
+            .map(String::trim)
+            .filter(l -> !l.startsWith("#"))
+            .collect(Collectors.joining(System.lineSeparator(), "", System.lineSeparator()));
+        Assertions.assertEquals(pretty, write(range, false));
+    }
+
+    // Older readers fail on import structures, so only maps that have them claim the spec that added them
+    @Test
+    public void testSpec() throws IOException {
+        String imports = write(build(), false);
+        Assertions.assertTrue(imports.startsWith("start 2 test/Nested.java hash"), imports);
+
+        RangeMapBuilder builder = new RangeMapBuilder(new RangeExtractor(), "test/Plain.java", "hash");
+        builder.addClassDeclaration(0, 20, "test/Plain");
+        builder.addClassReference(13, 5, "Plain", "test/Plain", false);
+        String plain = write(builder.build(), false);
+        Assertions.assertTrue(plain.startsWith("start 1 test/Plain.java hash"), plain);
+
+        // Every reader takes both, and nothing newer
+        Path text = temp.resolve("all.range");
+        Files.writeString(text, imports + plain);
+        Path dir = temp.resolve("split");
+        Files.createDirectories(dir.resolve("test"));
+        Files.writeString(dir.resolve("test/Nested.java.range"), imports);
+        Files.writeString(dir.resolve("test/Plain.java.range"), plain);
+        for (Path path : new Path[] { text, dir }) {
+            Map<String, RangeMap> read = RangeMapFormat.read(path);
+            Assertions.assertEquals(imports, write(read.get("test/Nested.java"), false), path.toString());
+            Assertions.assertEquals(plain, write(read.get("test/Plain.java"), false), path.toString());
+        }
+        Assertions.assertEquals(Set.of("test/Nested.java", "test/Plain.java"), RangeMap.readAll(new ByteArrayInputStream(Files.readAllBytes(text))).keySet());
+
+        Files.writeString(text, plain.replace("start 1 ", "start 3 "));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> RangeMapFormat.read(text));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> RangeMap.readAll(new ByteArrayInputStream(Files.readAllBytes(text))));
+        Files.writeString(dir.resolve("test/Plain.java.range"), plain.replace("start 1 ", "start 3 "));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> RangeMapFormat.read(dir));
+    }
+
+    @Test
+    public void testBinaryRoundTrip() throws IOException {
+        RangeMap range = build();
+        RangeMap read = new BinaryRangeMapReader(ByteBuffer.wrap(toBinary(range))).getRangeMaps().get("test/Nested.java");
+        Assertions.assertEquals(write(range, true), write(read, true));
+    }
+
+    @Test
+    public void testBinaryOldVersion() throws IOException {
+        byte[] data = toBinary(build());
+        ByteBuffer.wrap(data).putInt(4, 1);
+        IllegalArgumentException e = Assertions.assertThrows(IllegalArgumentException.class, () -> new BinaryRangeMapReader(ByteBuffer.wrap(data)));
+        Assertions.assertEquals("Invalid binary range map, unknown version: 1", e.getMessage());
+    }
+
+    @Test
+    public void testBinaryUnknownType() throws IOException {
+        byte[] data = toBinary(build());
+        // Header, then the block's structures length and count, then the first structure's type
+        data[8 + 2] = 0x7F;
+        RangeMap range = new BinaryRangeMapReader(ByteBuffer.wrap(data)).getRangeMaps().get("test/Nested.java");
+        IllegalArgumentException e = Assertions.assertThrows(IllegalArgumentException.class, range::getStructures);
+        Assertions.assertEquals("Invalid binary range map, unknown structure type: 127", e.getMessage());
+    }
+
+    @Test
+    public void testBinaryLargeOffset() throws IOException {
+        byte[] data = toBinary(build());
+        // Trailer is the strings offset, the index offset and the magic. A 4GB offset would have been truncated to 0 before.
+        ByteBuffer.wrap(data).putLong(data.length - 20, 1L << 32);
+        IllegalArgumentException e = Assertions.assertThrows(IllegalArgumentException.class, () -> new BinaryRangeMapReader(ByteBuffer.wrap(data)));
+        Assertions.assertEquals("Invalid binary range map, strings offset 4294967296 is larger than the 2GB that can be read", e.getMessage());
+    }
+
+    @Test
+    public void testLoad() throws IOException {
+        RangeMap lazy = new BinaryRangeMapReader(ByteBuffer.wrap(toBinary(build()))).getRangeMaps().get("test/Nested.java");
+        RangeMap loaded = lazy.load();
+        Assertions.assertSame(loaded, loaded.load(), "Loaded maps should not decode again");
+        Assertions.assertEquals(lazy.getEntries().size(), loaded.getEntries().size());
+        Assertions.assertEquals(lazy.getStructures().size(), loaded.getStructures().size());
+        Assertions.assertEquals(write(build(), true), write(loaded, true));
+    }
+
+    // Text maps are read into the heap, a mapping would keep the file locked on Windows for as long as the lazy maps are around
+    @Test
+    public void testTextNotMapped() throws IOException {
+        Path path = temp.resolve("all.range").toAbsolutePath();
+        try (IRangeMapWriter writer = RangeMapFormat.TEXT.createWriter(path)) {
+            writer.write(build());
+        }
+        Map<String, RangeMap> read = RangeMapFormat.read(path);
+        Path maps = Path.of("/proc/self/maps");
+        if (Files.isReadable(maps))
+            Assertions.assertFalse(Files.readString(maps).contains(path.toString()), "Text range maps should not be memory mapped");
+
+        // And nothing is left reading from the file
+        Files.delete(path);
+        Assertions.assertEquals(write(build(), true), write(read.get("test/Nested.java"), true));
+    }
+
+    @Test
+    public void testDirectoryRemovesStale() throws IOException {
+        Path root = temp.resolve("ranges");
+        try (IRangeMapWriter writer = RangeMapFormat.DIRECTORY.createWriter(root)) {
+            writer.write(build("test/Kept.java"));
+            writer.write(build("test/Removed.java"));
+            writer.finish();
+        }
+        Files.write(root.resolve("notes.txt"), new byte[0]);
+        // Not written by us, so not ours to delete
+        try (IRangeMapWriter other = RangeMapFormat.TEXT.createWriter(root.resolve("Other.java.range"))) {
+            other.write(build("Other.java"));
+        }
+
+        DirectoryRangeMapWriter writer = (DirectoryRangeMapWriter)RangeMapFormat.DIRECTORY.createWriter(root);
+        writer.write(build("test/Kept.java"));
+        writer.close();
+        Assertions.assertTrue(Files.exists(root.resolve("test/Removed.java.range")), "Nothing should be removed unless the run finished");
+
+        writer = (DirectoryRangeMapWriter)RangeMapFormat.DIRECTORY.createWriter(root);
+        writer.write(build("test/Kept.java"));
+        writer.finish();
+        writer.close();
+
+        Assertions.assertEquals(1, writer.getUnchanged());
+        Assertions.assertEquals(1, writer.getDeleted());
+        Assertions.assertTrue(Files.exists(root.resolve("test/Kept.java.range")));
+        Assertions.assertFalse(Files.exists(root.resolve("test/Removed.java.range")));
+        Assertions.assertTrue(Files.exists(root.resolve("notes.txt")), "Only range files should be removed");
+        Assertions.assertTrue(Files.exists(root.resolve("Other.java.range")), "Only range files from the last run should be removed");
+        Assertions.assertEquals(Set.of("Other.java", "test/Kept.java"), RangeMapFormat.read(root).keySet());
+    }
+
+    private static Set<String> extractDirectory(InputSupplier input, Path root, boolean batch) throws IOException {
+        boolean worked = new RangeExtractorBuilder()
+            .input(input)
+            .logger(new PrintStream(OutputStream.nullOutputStream()))
+            .errorLogger(new PrintStream(OutputStream.nullOutputStream()))
+            .output(root, RangeMapFormat.DIRECTORY)
+            .batch(batch)
+            .build()
+            .run();
+        Assertions.assertTrue(worked, "Failed to do work!");
+        return RangeMapFormat.read(root).keySet();
+    }
+
+    // A run that fails part way, or finds no sources at all, must leave the maps from the last good run alone
+    @Test
+    public void testDirectoryAbortedRun() throws IOException {
+        for (boolean batch : new boolean[] { true, false }) {
+            Path src = temp.resolve("src-" + batch);
+            Path root = temp.resolve("ranges-" + batch);
+            ParallelExtractTests.writeProject(src);
+            Set<String> expected = extractDirectory(FolderSupplier.create(src, StandardCharsets.UTF_8), root, batch);
+            Assertions.assertEquals(40, expected.size());
+
+            Files.delete(src.resolve("p7/C7_4.java"));
+            FolderSupplier broken = new FolderSupplier(src, StandardCharsets.UTF_8) {
+                @Override
+                public InputStream getInput(String path) {
+                    if (!"p2/C2_0.java".equals(path))
+                        return super.getInput(path);
+                    return new InputStream() {
+                        @Override
+                        public int read() throws IOException {
+                            throw new IOException("Simulated read failure");
+                        }
+                    };
+                }
+            };
+            try {
+                extractDirectory(broken, root, batch);
+            } catch (RuntimeException e) {
+                // Batches read through JDT, which gives up on the whole batch instead of the one file
+                Assertions.assertTrue(batch, "Only batches should throw: " + e);
+            }
+            Assertions.assertEquals(expected, RangeMapFormat.read(root).keySet(), "Failed runs should not remove anything");
+
+            Path empty = Files.createDirectories(temp.resolve("empty-" + batch));
+            Assertions.assertEquals(expected, extractDirectory(FolderSupplier.create(empty, StandardCharsets.UTF_8), root, batch), "Empty runs should not remove anything");
+
+            Set<String> removed = extractDirectory(FolderSupplier.create(src, StandardCharsets.UTF_8), root, batch);
+            Assertions.assertEquals(39, removed.size());
+            Assertions.assertFalse(removed.contains("p7/C7_4.java"), "Finished runs should remove maps for deleted sources");
+        }
+    }
+
+    @Test
+    public void testZipRoundTrip() throws IOException {
+        Path path = temp.resolve("ranges.zip");
+        try (IRangeMapWriter writer = RangeMapFormat.ZIP.createWriter(path)) {
+            writer.write(build("test/A.java"));
+            writer.write(build("test/B.java"));
+        }
+
+        Assertions.assertEquals(RangeMapFormat.ZIP, RangeMapFormat.detect(path));
+        Map<String, RangeMap> read = RangeMapFormat.read(path);
+        // Nothing is left reading from the zip, so it can be replaced before the maps are used
+        Files.delete(path);
+        Assertions.assertEquals(Set.of("test/A.java", "test/B.java"), read.keySet());
+        Assertions.assertEquals(write(build("test/A.java"), true), write(read.get("test/A.java"), true));
+    }
+
+    @Test
+    public void testZipOpen() throws IOException {
+        Path path = temp.resolve("ranges.zip");
+        try (IRangeMapWriter writer = RangeMapFormat.ZIP.createWriter(path)) {
+            writer.write(build("test/A.java"));
+            writer.write(build("test/B.java"));
+        }
+
+        RangeMap a, b;
+        try (SplitRangeMapReader reader = SplitRangeMapReader.openZip(path)) {
+            Map<String, RangeMap> read = reader.getRangeMaps();
+            Assertions.assertEquals(Set.of("test/A.java", "test/B.java"), read.keySet());
+            // Entries are inflated from the open zip when they are asked for
+            a = read.get("test/A.java").load();
+            b = read.get("test/B.java");
+        }
+
+        Assertions.assertEquals(write(build("test/A.java"), true), write(a, true), "Loaded maps should not need the zip");
+        Assertions.assertThrows(IllegalStateException.class, b::getEntries, "Nothing is left to read unloaded maps from");
+        Assertions.assertEquals("hash", b.getHash(), "The header is read when the zip is opened");
+    }
+
+    private static boolean isOpen(Path path) throws IOException {
+        try (Stream<Path> fds = Files.list(Path.of("/proc/self/fd"))) {
+            return fds.anyMatch(fd -> {
+                try {
+                    return Files.readSymbolicLink(fd).equals(path);
+                } catch (IOException e) {
+                    return false; // Closed while we were looking
+                }
+            });
+        }
+    }
+
+    // The applier reads each map from the zip as it gets to that file, and closes the zip when it is done
+    @Test
+    public void testApplyFromZip() throws IOException {
+        Path src = temp.resolve("src");
+        ParallelExtractTests.writeProject(src);
+        Path zip = temp.resolve("ranges.zip").toAbsolutePath();
+        new RangeExtractorBuilder()
+            .input(FolderSupplier.create(src, StandardCharsets.UTF_8))
+            .logger(new PrintStream(OutputStream.nullOutputStream()))
+            .output(zip, RangeMapFormat.ZIP)
+            .build()
+            .run();
+
+        RangeApplier applier = new RangeApplierBuilder()
+            .logger(new PrintStream(OutputStream.nullOutputStream()))
+            .input(src)
+            .output(Files.createDirectories(temp.resolve("out")))
+            .range(zip)
+            .threads(4)
+            .build();
+        boolean procfs = Files.isDirectory(Path.of("/proc/self/fd"));
+        if (procfs)
+            Assertions.assertTrue(isOpen(zip), "The zip should stay open until the run");
+        applier.run();
+        if (procfs)
+            Assertions.assertFalse(isOpen(zip), "The zip should be closed once the run is done");
+
+        try (Stream<Path> files = Files.walk(src)) {
+            for (Path file : files.filter(Files::isRegularFile).collect(Collectors.toList()))
+                Assertions.assertArrayEquals(Files.readAllBytes(file), Files.readAllBytes(temp.resolve("out").resolve(src.relativize(file))), file.toString());
+        }
+    }
+}
@@ -5,6 +5,7 @@
 
 package net.minecraftforge.srg2source.test;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -13,10 +14,12 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.net.HttpURLConnection;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystem;
 import java.nio.file.Files;
@@ -24,7 +27,9 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -38,6 +43,9 @@ import net.minecraftforge.srg2source.api.RangeExtractorBuilder;
 import net.minecraftforge.srg2source.api.SourceVersion;
 import net.minecraftforge.srg2source.apply.RangeApplier;
 import net.minecraftforge.srg2source.extract.RangeExtractor;
+import net.minecraftforge.srg2source.range.BinaryRangeMapReader;
+import net.minecraftforge.srg2source.range.BinaryRangeMapWriter;
+import net.minecraftforge.srg2source.range.RangeMap;
 import net.minecraftforge.srg2source.util.Util;
 import net.minecraftforge.srg2source.util.io.FolderSupplier;
 
@@ -76,6 +84,7 @@ public abstract class SimpleTestBase {
             Path range = root.resolve("mapped.range");
             testExtract(mapped, range, libraries, sourceVersion);
             testApply(original, range, mapped, root.resolve("mapped.tsrg"));
+            testApplyLexed(original, range, mapped, root.resolve("mapped.tsrg"));
         }
     }
 
@@ -146,6 +155,30 @@ public abstract class SimpleTestBase {
             System.out.println(log);
             Assertions.assertEquals(expected, data.toString(), range.getFileName().toString());
         }
+
+        testBinary(expected, range);
+    }
+
+    // Make sure the binary format holds everything the text format does
+    private void testBinary(String expected, Path range) {
+        try {
+            Map<String, RangeMap> ranges = RangeMap.readAll(new ByteArrayInputStream(expected.getBytes(StandardCharsets.UTF_8)));
+            ByteArrayOutputStream bin = new ByteArrayOutputStream();
+            try (BinaryRangeMapWriter writer = new BinaryRangeMapWriter(bin)) {
+                for (String name : new TreeSet<>(ranges.keySet()))
+                    writer.write(ranges.get(name));
+            }
+
+            Map<String, RangeMap> read = new BinaryRangeMapReader(ByteBuffer.wrap(bin.toByteArray())).getRangeMaps();
+            StringWriter text = new StringWriter();
+            try (PrintWriter writer = new PrintWriter(text)) {
+                for (String name : new TreeSet<>(read.keySet()))
+                    read.get(name).write(writer, true);
+            }
+            Assertions.assertEquals(expected, text.toString(), "Binary " + range.getFileName().toString());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
     }
 
     private void testApply(Path original, Path range, Path mapped, Path srg) {
@@ -171,6 +204,20 @@ public abstract class SimpleTestBase {
         }
     }
 
+    // Range maps from before the extractor recorded imports, so the header has to be lexed. The output should be the same.
+    private void testApplyLexed(Path original, Path range, Path mapped, Path srg) {
+        try (FileSystem imfs = Jimfs.newFileSystem(Configuration.unix())) {
+            List<String> lines = Files.readAllLines(range).stream()
+                .filter(l -> !l.startsWith("importsdef ") && !l.startsWith("importdef "))
+                .collect(Collectors.toList());
+            Path legacy = imfs.getPath("/legacy.range");
+            Files.write(legacy, lines);
+            testApply(original, legacy, mapped, srg);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     private void compareDirs(Path expected, Path actual) throws IOException {
         Set<String> lstExpected = Files.walk(expected).filter(Files::isRegularFile).map(p -> expected.relativize(p).toString().replace('\\', '/').replace(".txt", ".java")).collect(Collectors.toSet());
         Set<String> lstActual = Files.walk(actual).filter(Files::isRegularFile).map(p -> actual.relativize(p).toString().replace('\\', '/')).collect(Collectors.toSet());
@@ -20,6 +20,10 @@ public class SingleTests extends SimpleTestBase {
     @Test public void testInnerClass()     { testClass("InnerClass"    ); }
     @Test public void testLocalClass()     { testClass("LocalClass"    ); }
     @Test public void testImportSpaces()   { testClass("ImportSpaces"  ); }
+    @Test public void testImportComments() { testClass("ImportComments"); }
+    @Test public void testImportMultiple() { testClass("ImportMultiple"); }
+    @Test public void testImportStatic()   { testClass("ImportStatic"  ); }
+    @Test public void testImportCRLF()     { testClass("ImportCRLF"    ); }
     @Test public void testNestedGenerics() { testClass("NestedGenerics"); }
     @Test public void testPackageInfo()    { testClass("PackageInfo"   ); }
     //@Test public void testCache()          { testClass("GenericClasses"); }
@@ -0,0 +1,21 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.test;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import net.minecraftforge.srg2source.api.RangeApplierBuilder;
+
+public class SortedImportTests extends SimpleTestBase {
+    @Override protected String getPrefix() { return ""; }
+    @Override protected List<String> getLibraries(){ return Collections.emptyList(); }
+    @Override protected RangeApplierBuilder customize(RangeApplierBuilder builder) { return builder.sortImports(); }
+
+    @Test public void testImportSorted()   { testClass("ImportSorted"  ); }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import net.minecraftforge.srg2source.extract.RangeExtractor;
+import net.minecraftforge.srg2source.range.RangeMap;
+import net.minecraftforge.srg2source.range.RangeMapBuilder;
+import net.minecraftforge.srg2source.range.SymbolPool;
+import net.minecraftforge.srg2source.range.entries.FieldReference;
+
+public class SymbolPoolTests {
+    // New strings every time, so nothing is shared unless the pool did it.
+    private static String s(String value) {
+        return new String(value.toCharArray());
+    }
+
+    private static RangeMap build(RangeMapBuilder builder) {
+        builder.addPackageReference(8, 4, s("test"));
+        builder.addImportBlock(15, 21);
+        builder.addImportDeclaration(15, 21, s("java.util.List"), false, false);
+        builder.addClassDeclaration(38, 60, s("test/Pooled"));
+        builder.addClassReference(58, 4, s("List"), s("java/util/List"), false);
+        builder.addFieldReference(63, 5, s("names"), s("test/Pooled"));
+        builder.addMethodDeclaration(70, 25, s("size"), s("()I"));
+        builder.addMethodReference(85, 4, s("size"), s("java/util/List"), s("size"), s("()I"));
+        builder.addFieldReference(90, 5, s("names"), s("test/Pooled"));
+        builder.addParameterReference(100, 1, s("x"), s("test/Pooled"), s("size"), s("()I"), 0);
+        builder.addMixinAccessor(s("test/Pooled"), s("getNames"), s("()Ljava/util/List;"), s("test/Pooled"), s("names"), s("Ljava/util/List;"), s("get"));
+        return builder.build();
+    }
+
+    private static String write(RangeMap range) {
+        StringWriter ret = new StringWriter();
+        try (PrintWriter out = new PrintWriter(ret)) {
+            range.write(out, true);
+        }
+        return ret.toString();
+    }
+
+    @Test
+    public void testPooledOutputMatches() {
+        RangeExtractor logger = new RangeExtractor();
+        SymbolPool pool = new SymbolPool();
+        RangeMap first = build(new RangeMapBuilder(logger, "test/Pooled.java", "hash", pool));
+        RangeMap second = build(new RangeMapBuilder(logger, "test/Pooled.java", "hash", pool));
+        RangeMap unpooled = build(new RangeMapBuilder(logger, "test/Pooled.java", "hash"));
+
+        Assertions.assertEquals(write(unpooled), write(first));
+        Assertions.assertEquals(write(unpooled), write(second));
+
+        // Both the field references in one map, and the ones across maps built with the same pool, are the same instances.
+        FieldReference a = (FieldReference)first.getEntries().get(2);
+        FieldReference b = (FieldReference)first.getEntries().get(4);
+        FieldReference c = (FieldReference)second.getEntries().get(2);
+        Assertions.assertSame(a.getOwner(), b.getOwner());
+        Assertions.assertSame(a.getOwner(), c.getOwner());
+        Assertions.assertNotSame(a.getOwner(), ((FieldReference)unpooled.getEntries().get(2)).getOwner());
+    }
+
+    @Test
+    public void testPool() {
+        SymbolPool pool = new SymbolPool();
+        String first = pool.get(s("java/lang/Object"));
+        Assertions.assertSame(first, pool.get(s("java/lang/Object")));
+        Assertions.assertNull(pool.get(null));
+        Assertions.assertEquals(1, pool.size());
+    }
+}
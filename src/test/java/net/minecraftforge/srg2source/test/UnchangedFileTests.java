@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.minecraftforge.srg2source.api.RangeApplierBuilder;
+import net.minecraftforge.srg2source.api.RangeExtractorBuilder;
+import net.minecraftforge.srg2source.util.io.FolderSupplier;
+
+/*
+ * Files with nothing to rename are written with their original bytes, not decoded and encoded again.
+ */
+public class UnchangedFileTests {
+    @TempDir Path temp;
+
+    private static byte[] bytes(String prefix, byte[] middle, String suffix) {
+        ByteArrayOutputStream ret = new ByteArrayOutputStream();
+        ret.writeBytes(prefix.getBytes(StandardCharsets.UTF_8));
+        ret.writeBytes(middle);
+        ret.writeBytes(suffix.getBytes(StandardCharsets.UTF_8));
+        return ret.toByteArray();
+    }
+
+    @Test
+    public void testMalformedBytes() throws IOException {
+        Path src = temp.resolve("src");
+        Files.createDirectories(src.resolve("p"));
+        // A latin-1 é, a lone continuation byte, and bytes that are never valid UTF-8, all of which decode to U+FFFD
+        byte[] broken = { 'c', 'a', 'f', (byte)0xE9, ' ', (byte)0x80, ' ', (byte)0xFF, (byte)0xFE };
+        byte[] unchanged = bytes("package p;\n\n// ", broken, "\npublic class Unchanged {\n    public int field;\n}\n");
+        byte[] renamed = bytes("package p;\n\n// ", broken, "\npublic class Renamed {\n    public Unchanged other;\n}\n");
+        Files.write(src.resolve("p/Unchanged.java"), unchanged);
+        Files.write(src.resolve("p/Renamed.java"), renamed);
+
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        boolean worked = new RangeExtractorBuilder()
+            .input(FolderSupplier.create(src, StandardCharsets.UTF_8))
+            .logger(new PrintStream(OutputStream.nullOutputStream()))
+            .output(new PrintWriter(data))
+            .build()
+            .run();
+        Assertions.assertTrue(worked, "Failed to do work!");
+        Path range = Files.write(temp.resolve("src.range"), data.toByteArray());
+        Path srg = Files.write(temp.resolve("mapped.tsrg"), List.of("p/Renamed p/Other"));
+
+        for (int threads : new int[] { 1, 4 }) {
+            Path out = Files.createDirectories(temp.resolve("out" + threads));
+            new RangeApplierBuilder()
+                .logger(new PrintStream(OutputStream.nullOutputStream()))
+                .input(src)
+                .output(out)
+                .range(range)
+                .srg(srg)
+                .threads(threads)
+                .build()
+                .run();
+
+            Assertions.assertArrayEquals(unchanged, Files.readAllBytes(out.resolve("p/Unchanged.java")), "Unchanged file on " + threads + " threads");
+
+            // Renamed files are encoded from the decoded text, so the malformed bytes are replaced, that is what makes the pass through matter
+            String other = new String(Files.readAllBytes(out.resolve("p/Other.java")), StandardCharsets.UTF_8);
+            Assertions.assertTrue(other.contains("public class Other {"), other);
+            Assertions.assertTrue(other.contains("caf� � ��"), other);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) Forge Development LLC
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.minecraftforge.srg2source.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.minecraftforge.srg2source.api.InputSupplier;
+import net.minecraftforge.srg2source.util.Util;
+import net.minecraftforge.srg2source.util.io.FolderSupplier;
+import net.minecraftforge.srg2source.util.io.ZipFileSupplier;
+import net.minecraftforge.srg2source.util.io.ZipInputSupplier;
+
+public class ZipSupplierTests {
+    @TempDir Path temp;
+
+    private static void zip(Path src, Path target) throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(src)) {
+            files = stream.sorted().collect(Collectors.toList());
+        }
+        try (OutputStream out = Files.newOutputStream(target);
+             ZipOutputStream zout = new ZipOutputStream(out)) {
+            for (Path file : files) {
+                String name = src.relativize(file).toString().replace('\\', '/');
+                if (name.isEmpty())
+                    continue;
+                if (Files.isDirectory(file)) {
+                    zout.putNextEntry(new ZipEntry(name + '/'));
+                } else {
+                    zout.putNextEntry(new ZipEntry(name));
+                    zout.write(Files.readAllBytes(file));
+                }
+                zout.closeEntry();
+            }
+        }
+    }
+
+    private static String read(InputSupplier input, String path) throws IOException {
+        try (InputStream in = input.getInput(path)) {
+            Assertions.assertNotNull(in, "Missing " + path);
+            return new String(Util.readStream(in), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void testPrefetch() throws IOException {
+        Path src = temp.resolve("src");
+        ParallelExtractTests.writeProject(src);
+        Files.write(src.resolve("p0/notes.txt"), "not java".getBytes(StandardCharsets.UTF_8));
+        Path jar = temp.resolve("src.jar");
+        zip(src, jar);
+
+        List<String> expected;
+        try (InputSupplier reference = ZipInputSupplier.create(jar, StandardCharsets.UTF_8)) {
+            expected = reference.gatherAll(".java").stream().sorted().collect(Collectors.toList());
+            try (ZipFileSupplier zip = ZipFileSupplier.create(jar, StandardCharsets.UTF_8, ".java")) {
+                Assertions.assertEquals(40, expected.size());
+                Assertions.assertEquals(expected, zip.gatherAll(".java"), "Entries should be listed in zip order");
+                Assertions.assertEquals(List.of("p0/notes.txt"), zip.gatherAll(".txt"), "Directories should not be listed");
+                Assertions.assertEquals(StandardCharsets.UTF_8, zip.getEncoding("p0/C0_0.java"));
+                Assertions.assertEquals(jar.toString(), zip.getRoot("p0/C0_0.java"));
+
+                for (String path : expected) {
+                    // Prefetched entries are already inflated, and every read is served from that
+                    try (InputStream in = zip.getInput(path)) {
+                        Assertions.assertTrue(in instanceof ByteArrayInputStream, "Not prefetched: " + path);
+                    }
+                    Assertions.assertEquals(read(reference, path), read(zip, path), path);
+                    Assertions.assertEquals(read(reference, path), read(zip, path), "Second read of " + path);
+                }
+
+                // Anything else is still read from the zip on demand
+                try (InputStream in = zip.getInput("p0/notes.txt")) {
+                    Assertions.assertFalse(in instanceof ByteArrayInputStream, "Should not have been prefetched");
+                }
+                Assertions.assertEquals("not java", read(zip, "p0/notes.txt"));
+                Assertions.assertNull(zip.getInput("p0/Missing.java"));
+
+                zip.close();
+                Assertions.assertNull(zip.getInput(expected.get(0)), "Closed suppliers should not return anything");
+            }
+        }
+
+        try (ZipFileSupplier zip = ZipFileSupplier.create(jar, StandardCharsets.UTF_8)) {
+            try (InputStream in = zip.getInput(expected.get(0))) {
+                Assertions.assertFalse(in instanceof ByteArrayInputStream, "Nothing should be prefetched without a filter");
+            }
+        }
+    }
+
+    // Jars on disk are extracted through ZipFileSupplier with the sources prefetched, it has to match extracting the folder
+    @Test
+    public void testExtractFromJar() throws IOException {
+        Path src = temp.resolve("src");
+        ParallelExtractTests.writeProject(src);
+        Path jar = temp.resolve("src.jar");
+        zip(src, jar);
+
+        String expected = ParallelExtractTests.extract(FolderSupplier.create(src, StandardCharsets.UTF_8), 1);
+        try (ZipFileSupplier zip = ZipFileSupplier.create(jar, StandardCharsets.UTF_8, ".java")) {
+            Assertions.assertEquals(expected, ParallelExtractTests.extract(zip, 1));
+        }
+        try (ZipFileSupplier zip = ZipFileSupplier.create(jar, StandardCharsets.UTF_8, ".java")) {
+            Assertions.assertEquals(expected, ParallelExtractTests.extract(zip, 4));
+        }
+    }
+}